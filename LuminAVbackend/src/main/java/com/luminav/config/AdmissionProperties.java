@@ -0,0 +1,53 @@
+package com.luminav.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Control de admisión por owner autenticado (o IP) y clase de endpoint:
+ * app.admission.enabled=true
+ * app.admission.ingest.rate-per-second=20      app.admission.ingest.burst=60     app.admission.ingest.max-concurrent=32
+ * app.admission.analytics.rate-per-second=2    app.admission.analytics.burst=10  app.admission.analytics.max-concurrent=8
+ * app.admission.other.rate-per-second=10       app.admission.other.burst=30
+ * app.admission.max-tenants=50000
+ */
+@ConfigurationProperties(prefix = "app.admission")
+public class AdmissionProperties {
+
+  public static class Limit {
+    private double ratePerSecond;
+    private int burst;
+    private int maxConcurrent; // 0 = sin límite de concurrencia
+
+    public Limit() {}
+
+    Limit(double ratePerSecond, int burst, int maxConcurrent) {
+      this.ratePerSecond = ratePerSecond;
+      this.burst = burst;
+      this.maxConcurrent = maxConcurrent;
+    }
+
+    public double getRatePerSecond() { return ratePerSecond; }
+    public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+    public int getBurst() { return burst; }
+    public void setBurst(int burst) { this.burst = burst; }
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+  }
+
+  private boolean enabled = true;
+  private int maxTenants = 50_000;
+  private Limit ingest = new Limit(20, 60, 32);
+  private Limit analytics = new Limit(2, 10, 8);
+  private Limit other = new Limit(10, 30, 0);
+
+  public boolean isEnabled() { return enabled; }
+  public void setEnabled(boolean enabled) { this.enabled = enabled; }
+  public int getMaxTenants() { return maxTenants; }
+  public void setMaxTenants(int maxTenants) { this.maxTenants = maxTenants; }
+  public Limit getIngest() { return ingest; }
+  public void setIngest(Limit ingest) { this.ingest = ingest; }
+  public Limit getAnalytics() { return analytics; }
+  public void setAnalytics(Limit analytics) { this.analytics = analytics; }
+  public Limit getOther() { return other; }
+  public void setOther(Limit other) { this.other = other; }
+}
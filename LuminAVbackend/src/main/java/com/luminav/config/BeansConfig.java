@@ -1,8 +1,10 @@
 package com.luminav.config;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -12,4 +14,22 @@ public class BeansConfig {
   public PasswordEncoder passwordEncoder() {
     return new BCryptPasswordEncoder();
   }
-}
\ No newline at end of file
+
+  /**
+   * Pool acotado para BCrypt (login/registro), fuera de los hilos de Tomcat.
+   * Cola llena -> se rechaza la tarea y el controller responde 503 (load shedding).
+   */
+  @Bean(name = "authExecutor")
+  public ThreadPoolTaskExecutor authExecutor(
+      @Value("${app.auth.verify-threads:0}") int threads,
+      @Value("${app.auth.verify-queue:64}") int queue) {
+    int n = threads > 0 ? threads : Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+    ex.setCorePoolSize(n);
+    ex.setMaxPoolSize(n);
+    ex.setQueueCapacity(queue);
+    ex.setThreadNamePrefix("auth-");
+    ex.initialize();
+    return ex;
+  }
+}
@@ -0,0 +1,91 @@
+package com.luminav.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solo se activa si hay réplicas configuradas; sin ellas Spring Boot crea el DataSource normal.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(name = "app.datasource.replicas[0].url")
+public class DataSourceRoutingConfig {
+
+  private final ReplicaDataSourceProperties replicaProps;
+
+  public DataSourceRoutingConfig(ReplicaDataSourceProperties replicaProps) {
+    this.replicaProps = replicaProps;
+  }
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties props) {
+    HikariDataSource ds = props.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    ds.setPoolName("primary");
+    return ds;
+  }
+
+  @Bean
+  public ReadWriteRoutingDataSource readWriteRoutingDataSource(HikariDataSource primaryDataSource, DataSourceProperties props) {
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    List<ReplicaDataSourceProperties.Replica> list = replicaProps.getReplicas();
+    for (int i = 0; i < list.size(); i++) {
+      ReplicaDataSourceProperties.Replica r = list.get(i);
+      HikariDataSource ds = DataSourceBuilder.create()
+          .type(HikariDataSource.class)
+          .driverClassName(props.getDriverClassName())
+          .url(r.getUrl())
+          .username(r.getUsername() != null ? r.getUsername() : props.getUsername())
+          .password(r.getPassword() != null ? r.getPassword() : props.getPassword())
+          .build();
+      ds.setPoolName("replica-" + i);
+      ds.setMaximumPoolSize(r.getMaximumPoolSize());
+      ds.setConnectionTimeout(r.getConnectionTimeoutMs());
+      ds.setReadOnly(true);
+      replicas.put("replica-" + i, ds);
+    }
+    return new ReadWriteRoutingDataSource(primaryDataSource, replicas);
+  }
+
+  // Lazy: la conexión real se pide en la primera sentencia, cuando el flag readOnly ya está fijado
+  @Bean
+  @Primary
+  public DataSource dataSource(ReadWriteRoutingDataSource routing) {
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+
+  @Bean
+  public ReplicaHealthCheck replicaHealthCheck(ReadWriteRoutingDataSource routing) {
+    return new ReplicaHealthCheck(routing, replicaProps.getHealthCheckTimeoutSeconds());
+  }
+
+  /** Revisa periódicamente las réplicas caídas para devolverles tráfico de lectura */
+  public static class ReplicaHealthCheck {
+    private final ReadWriteRoutingDataSource routing;
+    private final int timeoutSeconds;
+
+    public ReplicaHealthCheck(ReadWriteRoutingDataSource routing, int timeoutSeconds) {
+      this.routing = routing;
+      this.timeoutSeconds = timeoutSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.health-check-ms:5000}")
+    public void run() {
+      routing.checkReplicas(timeoutSeconds);
+    }
+  }
+}
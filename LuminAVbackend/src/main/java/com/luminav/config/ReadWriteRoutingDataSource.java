@@ -0,0 +1,78 @@
+package com.luminav.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enruta transacciones readOnly a las réplicas (round-robin) y todo lo demás al primario.
+ * Debe usarse detrás de un LazyConnectionDataSourceProxy para que el flag readOnly
+ * ya esté fijado cuando se pide la conexión real.
+ * Réplica que falla -> se marca caída y se usa el primario hasta que el health-check la reactive.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+  public static final String PRIMARY = "primary";
+
+  private final DataSource primary;
+  private final Map<String, DataSource> replicas;
+  private final List<String> replicaKeys;
+  private final Set<String> down = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+    this.primary = primary;
+    this.replicas = new LinkedHashMap<>(replicas);
+    this.replicaKeys = List.copyOf(this.replicas.keySet());
+
+    Map<Object, Object> targets = new HashMap<>(this.replicas);
+    targets.put(PRIMARY, primary);
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return PRIMARY;
+    int n = replicaKeys.size();
+    for (int i = 0; i < n; i++) {
+      String key = replicaKeys.get(Math.floorMod(next.getAndIncrement(), n));
+      if (!down.contains(key)) return key;
+    }
+    return PRIMARY; // sin réplicas sanas
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    Object key = determineCurrentLookupKey();
+    if (PRIMARY.equals(key)) return primary.getConnection();
+    try {
+      return replicas.get(key).getConnection();
+    } catch (SQLException ex) {
+      down.add((String) key);
+      return primary.getConnection();
+    }
+  }
+
+  /** Verifica cada réplica; las que responden vuelven a recibir lecturas */
+  public void checkReplicas(int timeoutSeconds) {
+    replicas.forEach((key, ds) -> {
+      try (Connection c = ds.getConnection()) {
+        if (c.isValid(timeoutSeconds)) down.remove(key); else down.add(key);
+      } catch (SQLException ex) {
+        down.add(key);
+      }
+    });
+  }
+
+  public Set<String> unhealthyReplicas() {
+    return Set.copyOf(down);
+  }
+}
@@ -0,0 +1,44 @@
+package com.luminav.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de solo lectura:
+ * app.datasource.replicas[0].url=jdbc:mariadb://replica1:3306/luminav
+ * app.datasource.replicas[0].username=luminav
+ * app.datasource.replicas[0].password=...
+ * app.datasource.health-check-ms=5000
+ */
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaDataSourceProperties {
+
+  public static class Replica {
+    private String url;
+    private String username;
+    private String password;
+    private int maximumPoolSize = 10;
+    private long connectionTimeoutMs = 2000; // corto: si la réplica no responde se cae al primario
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    public int getMaximumPoolSize() { return maximumPoolSize; }
+    public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+    public long getConnectionTimeoutMs() { return connectionTimeoutMs; }
+    public void setConnectionTimeoutMs(long connectionTimeoutMs) { this.connectionTimeoutMs = connectionTimeoutMs; }
+  }
+
+  private List<Replica> replicas = new ArrayList<>();
+  private int healthCheckTimeoutSeconds = 2;
+
+  public List<Replica> getReplicas() { return replicas; }
+  public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+  public int getHealthCheckTimeoutSeconds() { return healthCheckTimeoutSeconds; }
+  public void setHealthCheckTimeoutSeconds(int s) { this.healthCheckTimeoutSeconds = s; }
+}
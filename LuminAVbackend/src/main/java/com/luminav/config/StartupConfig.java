@@ -0,0 +1,42 @@
+package com.luminav.config;
+
+import com.luminav.security.TokenService;
+import com.luminav.service.DirtyHourTracker;
+import com.luminav.service.ReadingIngestService;
+import com.luminav.service.RecentKeyFilter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Con spring.main.lazy-initialization=true (perfil prod) estos beans se crean igual al arrancar:
+ *  - el camino de ingesta, para que la primera ráfaga de un gateway no pague la inicialización
+ *  - los que tienen @Scheduled/@EventListener: un bean lazy nunca creado nunca registra sus tareas
+ */
+@Configuration
+public class StartupConfig {
+
+  private static final List<Class<?>> EAGER_TYPES = List.of(
+      ReadingIngestService.class, DirtyHourTracker.class, RecentKeyFilter.class, TokenService.class);
+
+  @Bean
+  static LazyInitializationExcludeFilter eagerRuntimeBeans() {
+    return (beanName, definition, beanType) -> beanType != null
+        && (EAGER_TYPES.stream().anyMatch(t -> t.isAssignableFrom(beanType)) || hasLifecycleMethods(beanType));
+  }
+
+  private static boolean hasLifecycleMethods(Class<?> type) {
+    AtomicBoolean found = new AtomicBoolean();
+    ReflectionUtils.doWithMethods(type, m -> found.set(true),
+        m -> !found.get() && (AnnotatedElementUtils.hasAnnotation(m, Scheduled.class)
+            || AnnotatedElementUtils.hasAnnotation(m, EventListener.class)));
+    return found.get();
+  }
+}
@@ -0,0 +1,45 @@
+package com.luminav.config;
+
+import com.luminav.security.AdmissionInterceptor;
+import com.luminav.security.CurrentOwnerArgumentResolver;
+import com.luminav.security.TokenService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class WebConfig {
+  @Bean
+  public WebMvcConfigurer currentOwnerConfigurer(TokenService tokens,
+                                                 @Value("${app.auth.allow-owner-param:false}") boolean allowOwnerParam) {
+    return new WebMvcConfigurer() {
+      @Override
+      public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentOwnerArgumentResolver(tokens, allowOwnerParam));
+      }
+    };
+  }
+
+  // Con réplicas el único HikariDataSource bean es el primario: su cola de espera es la señal de presión
+  @Bean
+  public WebMvcConfigurer admissionConfigurer(AdmissionProperties props, TokenService tokens,
+                                              ObjectProvider<HikariDataSource> pool, MeterRegistry metrics) {
+    AdmissionInterceptor admission = new AdmissionInterceptor(props, tokens, pool.getIfUnique(), metrics);
+    return new WebMvcConfigurer() {
+      @Override
+      public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admission).addPathPatterns("/api/**");
+      }
+    };
+  }
+}
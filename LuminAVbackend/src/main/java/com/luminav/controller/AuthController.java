@@ -3,13 +3,20 @@ import com.luminav.dto.RegisterRequest;
 import com.luminav.dto.RegisterResponse;
 import com.luminav.entity.User;
 import com.luminav.repository.UserRepository;
+import com.luminav.security.TokenService;
 
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 @RestController
@@ -18,64 +25,89 @@ public class AuthController {
 
   private final UserRepository users;
   private final PasswordEncoder encoder;
+  private final TokenService tokens;
+  private final AsyncTaskExecutor authExecutor;
 
-  public AuthController(UserRepository users, PasswordEncoder encoder) {
-    this.users = users; this.encoder = encoder;
+  public AuthController(UserRepository users, PasswordEncoder encoder, TokenService tokens,
+                        @Qualifier("authExecutor") AsyncTaskExecutor authExecutor) {
+    this.users = users; this.encoder = encoder; this.tokens = tokens; this.authExecutor = authExecutor;
   }
 
   @PostMapping("/register")
-  public ResponseEntity<?> register(@RequestBody RegisterRequest req) {
+  public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest req) {
     // Validaciones básicas
     if (req.getFullName() == null || req.getFullName().isBlank()
         || req.getEmail() == null || req.getEmail().isBlank()
         || req.getPassword() == null || req.getPassword().isBlank()) {
-      return ResponseEntity.badRequest().body("fullName, email y password son obligatorios");
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("fullName, email y password son obligatorios"));
     }
     // Email con '@' (validación simple)
     if (!Pattern.compile(".+@.+\\..+").matcher(req.getEmail()).matches()) {
-      return ResponseEntity.badRequest().body("email no es válido");
-    }
-    // Único por email
-    if (users.findByEmail(req.getEmail()).isPresent()) {
-      return ResponseEntity.status(409).body("email ya está registrado");
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("email no es válido"));
     }
 
-    // Crear usuario
-    User u = new User();
-    u.setFullName(req.getFullName());
-    u.setEmail(req.getEmail());
-    u.setUsername(req.getEmail()); // para compatibilidad con código que usa 'username'
-    u.setPasswordHash(encoder.encode(req.getPassword()));
-    u.setRole("RESIDENT");
-    u.setCreatedAt(Instant.now());
-    u = users.save(u);
+    // BCrypt en el pool de auth
+    return offload(() -> {
+      // Único por email
+      if (users.findByEmail(req.getEmail()).isPresent()) {
+        return ResponseEntity.status(409).body("email ya está registrado");
+      }
+
+      // Crear usuario
+      User u = new User();
+      u.setFullName(req.getFullName());
+      u.setEmail(req.getEmail());
+      u.setUsername(req.getEmail()); // para compatibilidad con código que usa 'username'
+      u.setPasswordHash(encoder.encode(req.getPassword()));
+      u.setRole("RESIDENT");
+      u.setCreatedAt(Instant.now());
+      u = users.save(u);
 
-    return ResponseEntity.ok(new RegisterResponse(
-      u.getId(), u.getFullName(), u.getEmail(), u.getRole(), u.getCreatedAt()
-    ));
+      return ResponseEntity.ok(new RegisterResponse(
+        u.getId(), u.getFullName(), u.getEmail(), u.getRole(), u.getCreatedAt(), tokens.issue(u.getId())
+      ));
+    });
   }
   
   @PostMapping("/login")
-  public ResponseEntity<?> login(@RequestBody Map<String, String> body) {
+  public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> body) {
     String email = body.get("email");
     String password = body.get("password");
     if (email == null || password == null || email.isBlank() || password.isBlank()) {
-      return ResponseEntity.badRequest().body("email y password son obligatorios");
+      return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("email y password son obligatorios"));
     }
-    var userOpt = users.findByEmail(email);
-    if (userOpt.isEmpty()) return ResponseEntity.status(401).body("Credenciales inválidas");
 
-    var u = userOpt.get();
-    if (!encoder.matches(password, u.getPasswordHash()))
-      return ResponseEntity.status(401).body("Credenciales inválidas");
+    // BCrypt en el pool de auth: el hilo de Tomcat queda libre mientras se verifica
+    return offload(() -> {
+      var userOpt = users.findByEmail(email);
+      if (userOpt.isEmpty()) return ResponseEntity.status(401).body("Credenciales inválidas");
+
+      var u = userOpt.get();
+      if (!encoder.matches(password, u.getPasswordHash()))
+        return ResponseEntity.status(401).body("Credenciales inválidas");
 
-    // Por ahora devolvemos datos básicos (sin JWT)
-    Map<String, Object> resp = Map.of(
-        "id", u.getId(),
-        "fullName", u.getFullName(),
-        "email", u.getEmail(),
-        "role", u.getRole()
-    );
-    return ResponseEntity.ok(resp);
+      // Token firmado sin estado: los demás endpoints resuelven el owner desde él
+      TokenService.Issued t = tokens.issue(u.getId());
+      Map<String, Object> resp = Map.of(
+          "id", u.getId(),
+          "fullName", u.getFullName(),
+          "email", u.getEmail(),
+          "role", u.getRole(),
+          "token", t.token(),
+          "expiresAt", t.expiresAt()
+      );
+      return ResponseEntity.ok(resp);
+    });
+  }
+
+  // Pool lleno -> 503 inmediato con Retry-After en vez de encolar sin límite
+  private CompletableFuture<ResponseEntity<?>> offload(Supplier<ResponseEntity<?>> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, authExecutor);
+    } catch (RejectedExecutionException ex) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(503)
+          .header(HttpHeaders.RETRY_AFTER, "2")
+          .body("Servicio de autenticación ocupado, reintenta"));
+    }
   }
-}
\ No newline at end of file
+}
@@ -1,26 +1,33 @@
 package com.luminav.controller;
 
+import com.luminav.dto.DashboardSummary;
+import com.luminav.security.CurrentOwner;
+import com.luminav.service.DashboardService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
-import java.util.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/api/dashboard")
 public class DashboardController {
 
+  private final DashboardService dashboard;
+
+  public DashboardController(DashboardService dashboard) { this.dashboard = dashboard; }
+
+  // ejemplo: GET /api/dashboard/summary?from=2025-09-01T00:00:00Z&to=2025-09-30T23:59:59Z
+  // con &maxPoints=200 devuelve "series" (granularidad adaptada + LTTB) en lugar de byHour/byDay
   @GetMapping("/summary")
-  public Map<String,Object> summary(@RequestParam Long ownerId,
-                                    @RequestParam String from,
-                                    @RequestParam String to) {
-    return Map.of(
-      "totalKwh", 23.5,
-      "totalCost", 14500.0,
-      "topDevices", List.of(
-        Map.of("name","Nevera","kwh",8.2,"cost",5000.0),
-        Map.of("name","Lavadora","kwh",6.1,"cost",3800.0)
-      ),
-      "hourly", List.of(
-        Map.of("hour",0,"kwh",0.2), Map.of("hour",1,"kwh",0.15)
-      )
-    );
+  public DashboardSummary summary(@CurrentOwner Long ownerId,
+                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                  @RequestParam(required = false) Integer maxPoints) {
+    if (maxPoints != null && maxPoints < DashboardService.MIN_POINTS) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxPoints debe ser al menos " + DashboardService.MIN_POINTS);
+    }
+    return dashboard.summarize(ownerId, from, to, maxPoints);
   }
-}
\ No newline at end of file
+}
@@ -3,13 +3,17 @@ package com.luminav.controller;
 
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.luminav.entity.Device;
-import com.luminav.entity.User;
+import com.luminav.entity.DeviceDeletionJob;
 import com.luminav.repository.DeviceRepository;
 import com.luminav.repository.UserRepository;
+import com.luminav.security.CurrentOwner;
+import com.luminav.service.DeviceDeletionService;
+import com.luminav.service.LiveDeviceRegistry;
 
 import java.time.Instant;
 import java.util.*;
@@ -20,28 +24,38 @@ public class DeviceController {
 
   private final DeviceRepository devices;
   private final UserRepository users;
+  private final DeviceDeletionService deletion;
+  private final LiveDeviceRegistry live;
 
-  public DeviceController(DeviceRepository devices, UserRepository users){
-    this.devices = devices; this.users = users;
+  public DeviceController(DeviceRepository devices, UserRepository users, DeviceDeletionService deletion,
+                          LiveDeviceRegistry live){
+    this.devices = devices; this.users = users; this.deletion = deletion; this.live = live;
   }
 
   @GetMapping
-  public List<Device> list(@RequestParam Long ownerId){
-    return devices.findByOwnerId(ownerId);
+  public List<Device> list(@CurrentOwner Long ownerId){
+    return devices.findByOwner_IdAndDeletedAtIsNull(ownerId);
   }
 
   @PostMapping
-  public Device create(@RequestParam Long ownerId, @RequestBody Device body){
-    User u = users.findById(ownerId).orElseThrow();
+  public Device create(@CurrentOwner Long ownerId, @RequestBody Device body){
     body.setId(null);
-    body.setOwner(u);
+    body.setOwner(users.getReferenceById(ownerId)); // referencia: sin SELECT del usuario
     body.setCreatedAt(Instant.now());
-    return devices.save(body);
+    Device saved = devices.save(body);
+    live.register(ownerId, saved.getId());
+    return saved;
+  }
+
+  // Estado "ahora" de cada dispositivo desde memoria (sin consultas); los nombres salen de GET /api/devices
+  @GetMapping("/live")
+  public List<LiveDeviceRegistry.LiveDevice> live(@CurrentOwner Long ownerId){
+    return live.live(ownerId);
   }
 
   @PutMapping("/{id}")
-  public Device update(@PathVariable Long id, @RequestParam Long ownerId, @RequestBody Device body){
-    Device d = devices.findById(id).orElseThrow();
+  public Device update(@PathVariable Long id, @CurrentOwner Long ownerId, @RequestBody Device body){
+    Device d = findActive(id);
     if (!d.getOwner().getId().equals(ownerId)) { throw new ResponseStatusException(HttpStatus.FORBIDDEN); }
     d.setName(body.getName());
     d.setType(body.getType());
@@ -50,10 +64,23 @@ public class DeviceController {
     return devices.save(d);
   }
 
+  // Borrado asíncrono: responde 202 con el job; las lecturas se purgan en segundo plano
   @DeleteMapping("/{id}")
-  public void delete(@PathVariable Long id, @RequestParam Long ownerId){
-    Device d = devices.findById(id).orElseThrow();
+  public ResponseEntity<DeviceDeletionJob> delete(@PathVariable Long id, @CurrentOwner Long ownerId){
+    Device d = findActive(id);
     if (!d.getOwner().getId().equals(ownerId)) { throw new ResponseStatusException(HttpStatus.FORBIDDEN); }
-    devices.deleteById(id);
+    return ResponseEntity.accepted().body(deletion.requestDeletion(d));
+  }
+
+  @GetMapping("/deletions/{jobId}")
+  public DeviceDeletionJob deletionStatus(@PathVariable Long jobId, @CurrentOwner Long ownerId){
+    return deletion.findJob(jobId, ownerId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Deletion job not found"));
+  }
+
+  private Device findActive(Long id){
+    return devices.findById(id)
+        .filter(d -> d.getDeletedAt() == null)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Device not found"));
   }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.luminav.controller;
 
+import com.luminav.security.CurrentOwner;
 import com.luminav.service.ForecastService;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,9 +14,9 @@ public class ForecastController {
 
   public ForecastController(ForecastService forecast) { this.forecast = forecast; }
 
-  // ejemplo: GET /api/forecast/hourly?ownerId=1&days=7
+  // ejemplo: GET /api/forecast/hourly?days=7 (el owner sale del token)
   @GetMapping("/hourly")
-  public Map<Integer, Double> hourly(@RequestParam Long ownerId, @RequestParam(defaultValue = "7") int days) {
+  public Map<Integer, Double> hourly(@CurrentOwner Long ownerId, @RequestParam(defaultValue = "7") int days) {
     return forecast.hourlyBaseline(ownerId, days);
   }
 }
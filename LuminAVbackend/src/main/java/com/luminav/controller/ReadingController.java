@@ -1,65 +1,132 @@
 package com.luminav.controller;
 
 import com.luminav.dto.ReadingDTOs;
-import com.luminav.entity.Device;
 import com.luminav.entity.Reading;
-import com.luminav.repository.DeviceRepository;
-import com.luminav.repository.ReadingRepository;
+import com.luminav.security.CurrentOwner;
+import com.luminav.service.ReadingFrameDecoder;
+import com.luminav.service.ReadingIngestService;
+import com.luminav.service.ReadingQueryService;
+import com.luminav.service.RecentKeyFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 @RestController
 @RequestMapping("/api/readings")
 public class ReadingController {
 
-  private final ReadingRepository readings;
-  private final DeviceRepository devices;
+  private final ReadingQueryService query;
+  private final ReadingIngestService ingest;
+  private final RecentKeyFilter recentKeys;
 
-  public ReadingController(ReadingRepository readings, DeviceRepository devices) {
-    this.readings = readings; this.devices = devices;
+  private static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+  private static final String GATEWAY_HEADER = "X-Gateway-Id";
+
+  // Límites del formato binario (payload ya descomprimido)
+  @Value("${app.ingest.max-frame-bytes:8388608}")
+  private int maxFrameBytes;
+
+  @Value("${app.ingest.max-readings-per-request:200000}")
+  private int maxReadingsPerRequest;
+
+  public ReadingController(ReadingQueryService query, ReadingIngestService ingest, RecentKeyFilter recentKeys) {
+    this.query = query; this.ingest = ingest; this.recentKeys = recentKeys;
   }
 
+  // Mezcla tabla caliente y archivo frío según el rango (ReadingQueryService)
   @GetMapping
   public List<Reading> list(
-      @RequestParam Long ownerId,
+      @CurrentOwner Long ownerId,
       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
       @RequestParam(required = false) Long deviceId
   ) {
-    if (deviceId != null) {
-      return readings.findByDeviceOwnerIdAndRecordedAtBetweenAndDeviceId(ownerId, from, to, deviceId);
-    }
-    return readings.findByDeviceOwnerIdAndRecordedAtBetween(ownerId, from, to);
+    return query.list(ownerId, from, to, deviceId);
   }
 
   @PostMapping
   public Reading create(@RequestBody ReadingDTOs.CreateReading body) {
-    Device d = devices.findById(body.deviceId).orElseThrow();
-    Reading r = new Reading();
-    r.setDevice(d);
-    r.setWatt(body.watt);
-    r.setMinutes(body.minutes == null ? 60 : body.minutes);
-    r.setRecordedAt(body.recordedAt == null ? Instant.now() : body.recordedAt);
-    return readings.save(r);
+    ReadingIngestService.Batch batch = new ReadingIngestService.Batch(1);
+    add(batch, body);
+    return ingest.ingestOne(batch);
   }
 
+  // Idempotency-Key: un reintento del mismo lote responde 200 sin volver a tocar la base.
+  // La clave vale dentro de (X-Gateway-Id, dispositivos del lote): ver RecentKeyFilter.batchKey
   @PostMapping("/bulk")
-  public ResponseEntity<?> bulk(@RequestBody ReadingDTOs.BulkCreateRequest req) {
+  public ResponseEntity<?> bulk(@RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
+                                @RequestHeader(value = GATEWAY_HEADER, required = false) String gatewayId,
+                                @RequestBody ReadingDTOs.BulkCreateRequest req) {
     if (req.readings == null || req.readings.isEmpty()) return ResponseEntity.badRequest().body("readings vacío");
-    for (ReadingDTOs.CreateReading c : req.readings) {
-      Device d = devices.findById(c.deviceId).orElseThrow();
-      Reading r = new Reading();
-      r.setDevice(d);
-      r.setWatt(c.watt);
-      r.setMinutes(c.minutes == null ? 60 : c.minutes);
-      r.setRecordedAt(c.recordedAt == null ? Instant.now() : c.recordedAt);
-      readings.save(r);
+    ReadingIngestService.Batch batch = new ReadingIngestService.Batch(req.readings.size());
+    for (ReadingDTOs.CreateReading c : req.readings) add(batch, c);
+    String batchKey = idempotencyKey == null ? null : RecentKeyFilter.batchKey(gatewayId, idempotencyKey, batch);
+    if (batchKey != null && recentKeys.seenBatch(batchKey)) return replayed();
+    return accepted(batchKey, ingest.ingest(batch));
+  }
+
+  // Formato binario compacto (ver ReadingFrameDecoder); mismo camino de persistencia que el bulk JSON
+  @PostMapping(value = "/bulk", consumes = ReadingFrameDecoder.CONTENT_TYPE)
+  public ResponseEntity<?> bulkBinary(@RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
+                                      @RequestHeader(value = GATEWAY_HEADER, required = false) String gatewayId,
+                                      HttpServletRequest request) throws IOException {
+    byte[] payload;
+    try (InputStream in = decompress(request)) {
+      payload = in.readNBytes(maxFrameBytes + 1);
+    }
+    if (payload.length > maxFrameBytes) return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("payload demasiado grande");
+    if (payload.length == 0) return ResponseEntity.badRequest().body("readings vacío");
+
+    ReadingIngestService.Batch batch;
+    try {
+      batch = ReadingFrameDecoder.decode(payload, maxReadingsPerRequest);
+    } catch (IllegalArgumentException ex) {
+      return ResponseEntity.badRequest().body(ex.getMessage());
     }
-    return ResponseEntity.ok().build();
+    String batchKey = idempotencyKey == null ? null : RecentKeyFilter.batchKey(gatewayId, idempotencyKey, batch);
+    if (batchKey != null && recentKeys.seenBatch(batchKey)) return replayed();
+    return accepted(batchKey, ingest.ingest(batch));
   }
-}
 
+  // La clave se recuerda solo si el lote entró: un lote fallido se puede reintentar con la misma clave
+  private ResponseEntity<?> accepted(String batchKey, ReadingIngestService.Result result) {
+    if (batchKey != null) recentKeys.rememberBatch(batchKey);
+    return ResponseEntity.ok(Map.of("accepted", result.saved().size(), "duplicates", result.duplicates()));
+  }
+
+  private ResponseEntity<?> replayed() {
+    return ResponseEntity.ok().header("Idempotent-Replayed", "true").body(Map.of("accepted", 0, "duplicates", 0));
+  }
+
+  private void add(ReadingIngestService.Batch batch, ReadingDTOs.CreateReading c) {
+    if (c.deviceId == null || c.watt == null) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "deviceId y watt son obligatorios");
+    }
+    if (c.minutes != null && c.minutes <= 0) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minutes debe ser positivo");
+    }
+    Instant at = c.recordedAt == null ? Instant.now() : c.recordedAt;
+    batch.add(c.deviceId, at.toEpochMilli(), c.watt, c.minutes == null ? 60 : c.minutes);
+  }
+
+  private InputStream decompress(HttpServletRequest request) throws IOException {
+    String encoding = request.getHeader("Content-Encoding");
+    InputStream in = request.getInputStream();
+    if (encoding == null || encoding.isBlank() || encoding.equalsIgnoreCase("identity")) return in;
+    if (encoding.equalsIgnoreCase("gzip")) return new GZIPInputStream(in);
+    if (encoding.equalsIgnoreCase("deflate")) return new InflaterInputStream(in);
+    throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Content-Encoding no soportado: " + encoding);
+  }
+}
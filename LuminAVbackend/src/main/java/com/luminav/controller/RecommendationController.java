@@ -2,8 +2,10 @@ package com.luminav.controller;
 
 import com.luminav.entity.Recommendation;
 import com.luminav.repository.RecommendationRepository;
+import com.luminav.security.CurrentOwner;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -21,8 +23,9 @@ public class RecommendationController {
   }
 
   @GetMapping
+  @Transactional(readOnly = true)
   public List<Recommendation> list(
-      @RequestParam Long ownerId,
+      @CurrentOwner Long ownerId,
       @RequestParam(required = false) String status,
       @RequestParam(defaultValue = "100") int limit
   ) {
@@ -35,17 +38,23 @@ public class RecommendationController {
   }
 
   @PutMapping("/{id}/status")
-  public Recommendation updateStatus(@PathVariable Long id, @RequestParam String status) {
-    Recommendation r = recos.findById(id)
-        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recommendation not found"));
+  public Recommendation updateStatus(@PathVariable Long id, @CurrentOwner Long ownerId, @RequestParam String status) {
+    Recommendation r = findOwned(id, ownerId);
     r.setStatus(status.toUpperCase());
     return recos.save(r);
   }
 
   @DeleteMapping("/{id}")
   @ResponseStatus(HttpStatus.NO_CONTENT)
-  public void delete(@PathVariable Long id) {
-    recos.deleteById(id);
+  public void delete(@PathVariable Long id, @CurrentOwner Long ownerId) {
+    recos.delete(findOwned(id, ownerId));
+  }
+
+  private Recommendation findOwned(Long id, Long ownerId) {
+    Recommendation r = recos.findById(id)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Recommendation not found"));
+    if (!ownerId.equals(r.getOwnerId())) throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+    return r;
   }
 }
 
@@ -1,29 +1,84 @@
 package com.luminav.controller;
 
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.luminav.entity.Tariff;
-import com.luminav.entity.User;
+import com.luminav.entity.TariffBand;
 import com.luminav.repository.TariffRepository;
 import com.luminav.repository.UserRepository;
+import com.luminav.security.CurrentOwner;
+import com.luminav.service.RollupService;
+import com.luminav.service.TariffPricing;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/tariff")
 public class TariffController {
-  private final TariffRepository tariffs; private final UserRepository users;
-  public TariffController(TariffRepository t, UserRepository u){this.tariffs=t; this.users=u;}
+  private final TariffRepository tariffs; private final UserRepository users; private final RollupService rollups;
+  public TariffController(TariffRepository t, UserRepository u, RollupService r){this.tariffs=t; this.users=u; this.rollups=r;}
 
+  // Versión vigente ahora
   @GetMapping
-  public Tariff get(@RequestParam Long ownerId) {
-    return tariffs.findByOwnerId(ownerId).orElse(null);
+  public Tariff get(@CurrentOwner Long ownerId) {
+    return TariffPricing.inForce(tariffs.findByOwner_IdOrderByEffectiveFromDesc(ownerId), Instant.now());
   }
 
+  // Guarda una versión que rige desde effectiveFrom (opcional, por defecto inicio del mes actual; se redondea a la hora)
+  // hasta la siguiente versión. Solo se re-tarifan los rollups de ese periodo; las horas anteriores conservan su precio
+  // y los recalculos posteriores (lecturas tardías, backfill) usan la versión vigente en cada hora.
   @PutMapping
-  public Tariff upsert(@RequestParam Long ownerId, @RequestBody Tariff t) {
-    User u = users.findById(ownerId).orElseThrow();
-    return tariffs.findByOwnerId(ownerId)
-      .map(ex -> { ex.setPricePerKwh(t.getPricePerKwh()); ex.setPeakStart(t.getPeakStart()); ex.setPeakEnd(t.getPeakEnd()); return tariffs.save(ex); })
-      .orElseGet(() -> { t.setId(null); t.setOwner(u); return tariffs.save(t); });
+  @Transactional
+  public Tariff upsert(@CurrentOwner Long ownerId, @RequestBody Tariff t,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant effectiveFrom) {
+    validate(t);
+    Instant from = (effectiveFrom != null ? effectiveFrom
+        : ZonedDateTime.now(TariffPricing.ZONE).withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).toInstant())
+        .truncatedTo(ChronoUnit.HOURS);
+    List<Tariff> versions = tariffs.findByOwner_IdOrderByEffectiveFromDesc(ownerId);
+    Instant to = null;
+    Tariff same = null;
+    for (Tariff v : versions) {
+      if (v.getEffectiveFrom().isAfter(from)) to = v.getEffectiveFrom();
+      else if (v.getEffectiveFrom().equals(from)) same = v;
+    }
+
+    Tariff saved;
+    if (same != null) {
+      same.setPricePerKwh(t.getPricePerKwh()); same.setPeakStart(t.getPeakStart()); same.setPeakEnd(t.getPeakEnd());
+      same.getBands().clear();
+      for (TariffBand b : t.getBands()) { b.setId(null); b.setTariff(same); same.getBands().add(b); }
+      saved = tariffs.save(same);
+    } else {
+      t.setId(null); t.setOwner(users.getReferenceById(ownerId)); t.setEffectiveFrom(from);
+      for (TariffBand b : t.getBands()) { b.setId(null); b.setTariff(t); }
+      saved = tariffs.save(t);
+    }
+    rollups.reprice(ownerId, saved, from, to);
+    return saved;
+  }
+
+  private void validate(Tariff t) {
+    if (t.getBands() == null) t.setBands(new ArrayList<>());
+    for (TariffBand b : t.getBands()) {
+      if (b.getStartHour() < 0 || b.getStartHour() > 23 || b.getEndHour() < 0 || b.getEndHour() > 23) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startHour/endHour deben estar entre 0 y 23");
+      }
+      if (b.getName() == null || b.getName().isBlank()) b.setName("PEAK");
+      b.setName(b.getName().toUpperCase());
+      b.setDays(b.getDays() == null || b.getDays().isBlank() ? "ALL" : b.getDays().toUpperCase());
+      if (!b.getDays().equals("ALL") && !b.getDays().equals("WEEKDAY") && !b.getDays().equals("WEEKEND")) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "days debe ser ALL, WEEKDAY o WEEKEND");
+      }
+    }
   }
-}
\ No newline at end of file
+}
@@ -4,10 +4,12 @@ import java.util.List;
 
 public class DashboardSummary {
   public static class Point {
-    public String bucket; // "2025-09-10 14:00" o "2025-09-10"
+    public String bucket; // "2025-09-10 14:00", "2025-09-10" o "2025-09" (mes)
     public double kwh;
+    public double cost;
     public Point() {}
     public Point(String bucket, double kwh) { this.bucket = bucket; this.kwh = kwh; }
+    public Point(String bucket, double kwh, double cost) { this.bucket = bucket; this.kwh = kwh; this.cost = cost; }
   }
   public static class DeviceUsage {
     public Long deviceId;
@@ -16,9 +18,20 @@ public class DashboardSummary {
     public DeviceUsage() {}
     public DeviceUsage(Long deviceId, String name, double kwh) { this.deviceId = deviceId; this.name = name; this.kwh = kwh; }
   }
+  public static class BandUsage {
+    public String band; // PEAK | OFF_PEAK | SHOULDER | FLAT
+    public double kwh;
+    public double cost;
+    public BandUsage() {}
+    public BandUsage(String band, double kwh, double cost) { this.band = band; this.kwh = kwh; this.cost = cost; }
+  }
   public double totalKwh;
   public double totalCost;
   public List<Point> byHour;
   public List<Point> byDay;
   public List<DeviceUsage> topDevices;
+  public List<BandUsage> byBand;
+  // Solo con maxPoints (en lugar de byHour/byDay): HOUR | DAY | WEEK | MONTH y la serie ya reducida
+  public String granularity;
+  public List<Point> series;
 }
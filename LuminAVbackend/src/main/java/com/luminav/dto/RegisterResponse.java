@@ -1,5 +1,7 @@
 package com.luminav.dto;
 
+import com.luminav.security.TokenService;
+
 import java.time.Instant;
 
 public class RegisterResponse {
@@ -8,13 +10,21 @@ public class RegisterResponse {
 	  private String email;
 	  private String role;
 	  private Instant createdAt;
+	  private String token;
+	  private Instant expiresAt;
 
 	  public RegisterResponse(Long id, String fullName, String email, String role, Instant createdAt) {
 	    this.id = id; this.fullName = fullName; this.email = email; this.role = role; this.createdAt = createdAt;
 	  }
+	  public RegisterResponse(Long id, String fullName, String email, String role, Instant createdAt, TokenService.Issued t) {
+	    this(id, fullName, email, role, createdAt);
+	    this.token = t.token(); this.expiresAt = t.expiresAt();
+	  }
 	  public Long getId() { return id; }
 	  public String getFullName() { return fullName; }
 	  public String getEmail() { return email; }
 	  public String getRole() { return role; }
 	  public Instant getCreatedAt() { return createdAt; }
+	  public String getToken() { return token; }
+	  public Instant getExpiresAt() { return expiresAt; }
 }
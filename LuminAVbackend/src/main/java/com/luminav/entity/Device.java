@@ -1,9 +1,13 @@
 package com.luminav.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Device {
   @Id @GeneratedValue(strategy=GenerationType.IDENTITY)
   private Long id;
@@ -11,8 +15,10 @@ public class Device {
   private String type;      // Nevera, Lavadora, TV...
   private Integer watt;     // potencia
   private String location;  // cocina, sala...
-  @ManyToOne(optional=false) private User owner;
+  // LAZY: el JSON solo expone ownerId (el id del proxy no dispara consulta)
+  @ManyToOne(fetch=FetchType.LAZY, optional=false) @JsonIgnore private User owner;
   @Column(nullable=false) private Instant createdAt = Instant.now();
+  private Instant deletedAt; // tombstone: el purgado de lecturas corre en segundo plano
   // getters/setters
   public Long getId(){return id;} public void setId(Long id){this.id=id;}
   public String getName(){return name;} public void setName(String n){this.name=n;}
@@ -20,5 +26,7 @@ public class Device {
   public Integer getWatt(){return watt;} public void setWatt(Integer w){this.watt=w;}
   public String getLocation(){return location;} public void setLocation(String l){this.location=l;}
   public User getOwner(){return owner;} public void setOwner(User o){this.owner=o;}
+  @Transient @JsonProperty("ownerId") public Long getOwnerId(){return owner != null ? owner.getId() : null;}
   public Instant getCreatedAt(){return createdAt;} public void setCreatedAt(Instant t){this.createdAt=t;}
+  public Instant getDeletedAt(){return deletedAt;} public void setDeletedAt(Instant t){this.deletedAt=t;}
 }
@@ -0,0 +1,60 @@
+package com.luminav.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity @Table(name = "device_deletion_job")
+public class DeviceDeletionJob {
+  @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  // Sin FK: el dispositivo desaparece al terminar el job
+  @Column(nullable = false)
+  private Long deviceId;
+
+  @Column(nullable = false)
+  private Long ownerId;
+
+  // PENDING | RUNNING | DONE | FAILED (FAILED solo al agotar los reintentos)
+  @Column(nullable = false, length = 16)
+  private String status = "PENDING";
+
+  @Column(nullable = false)
+  private long deletedReadings = 0;
+
+  @Column(length = 500)
+  private String error;
+
+  @Column(nullable = false)
+  private Instant createdAt = Instant.now();
+
+  private Instant finishedAt;
+
+  // Fallos consecutivos; con nextAttemptAt el job PENDING espera antes de reintentarse
+  @Column(nullable = false)
+  private int attempts = 0;
+
+  private Instant nextAttemptAt;
+
+  // getters/setters
+  public Long getId() { return id; }
+  public void setId(Long id) { this.id = id; }
+  public Long getDeviceId() { return deviceId; }
+  public void setDeviceId(Long deviceId) { this.deviceId = deviceId; }
+  public Long getOwnerId() { return ownerId; }
+  public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+  public String getStatus() { return status; }
+  public void setStatus(String status) { this.status = status; }
+  public long getDeletedReadings() { return deletedReadings; }
+  public void setDeletedReadings(long deletedReadings) { this.deletedReadings = deletedReadings; }
+  public String getError() { return error; }
+  public void setError(String error) { this.error = error; }
+  public Instant getCreatedAt() { return createdAt; }
+  public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+  public Instant getFinishedAt() { return finishedAt; }
+  public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+  public int getAttempts() { return attempts; }
+  public void setAttempts(int attempts) { this.attempts = attempts; }
+  public Instant getNextAttemptAt() { return nextAttemptAt; }
+  public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+}
@@ -0,0 +1,68 @@
+package com.luminav.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Agregado por (dispositivo, hora). Lo mantiene RollupService a partir de las horas marcadas como sucias.
+ */
+@Entity
+@Table(name = "hourly_rollup",
+    uniqueConstraints = @UniqueConstraint(name = "uk_rollup_device_bucket", columnNames = {"device_id", "bucket_start"}),
+    indexes = @Index(name = "idx_rollup_owner_bucket", columnList = "owner_id, bucket_start"))
+public class HourlyRollup {
+  @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  // Ids planos (sin FK) para poder borrar/recalcular por lotes sin cargar entidades
+  @Column(name = "owner_id", nullable = false)
+  private Long ownerId;
+
+  @Column(name = "device_id", nullable = false)
+  private Long deviceId;
+
+  @Column(name = "bucket_start", nullable = false)
+  private Instant bucketStart; // inicio de la hora (UTC)
+
+  @Column(nullable = false)
+  private double kwh;
+
+  @Column(nullable = false)
+  private int samples;
+
+  // Costo calculado al agregar con la franja vigente (TariffPricing)
+  @Column(nullable = false)
+  private double cost;
+
+  @Column(nullable = false, length = 16)
+  private String band = "FLAT";
+
+  // Hora local y fin de semana: permiten re-tarifar con UPDATE por franja sin leer lecturas
+  @Column(name = "local_hour", nullable = false)
+  private int localHour;
+
+  @Column(nullable = false)
+  private boolean weekend;
+
+  // getters/setters
+  public Long getId() { return id; }
+  public void setId(Long id) { this.id = id; }
+  public Long getOwnerId() { return ownerId; }
+  public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+  public Long getDeviceId() { return deviceId; }
+  public void setDeviceId(Long deviceId) { this.deviceId = deviceId; }
+  public Instant getBucketStart() { return bucketStart; }
+  public void setBucketStart(Instant bucketStart) { this.bucketStart = bucketStart; }
+  public double getKwh() { return kwh; }
+  public void setKwh(double kwh) { this.kwh = kwh; }
+  public int getSamples() { return samples; }
+  public void setSamples(int samples) { this.samples = samples; }
+  public double getCost() { return cost; }
+  public void setCost(double cost) { this.cost = cost; }
+  public String getBand() { return band; }
+  public void setBand(String band) { this.band = band; }
+  public int getLocalHour() { return localHour; }
+  public void setLocalHour(int localHour) { this.localHour = localHour; }
+  public boolean isWeekend() { return weekend; }
+  public void setWeekend(boolean weekend) { this.weekend = weekend; }
+}
@@ -3,12 +3,15 @@ package com.luminav.entity;
 import jakarta.persistence.*;
 import java.time.Instant;
 
-@Entity @Table(name = "reading")
+// (device_id, recorded_at) es la clave natural: el índice único es la última barrera contra reintentos duplicados
+@Entity @Table(name = "reading",
+    uniqueConstraints = @UniqueConstraint(name = "uk_reading_device_recorded", columnNames = {"device_id", "recorded_at"}))
 public class Reading {
   @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
-  @ManyToOne(optional = false)
+  // LAZY: las consultas que devuelven lecturas al cliente traen el dispositivo con @EntityGraph
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
   private Device device;
 
   @Column(nullable = false)
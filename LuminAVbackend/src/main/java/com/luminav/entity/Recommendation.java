@@ -21,6 +21,12 @@ public class Recommendation {
   @JsonIgnore
   private User owner;
 
+  // Dispositivo al que apunta la recomendación (null = nivel hogar)
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "device_id")
+  @JsonIgnore
+  private Device device;
+
   @Column(nullable = false, length = 500)
   private String message;
 
@@ -42,6 +48,12 @@ public class Recommendation {
     return owner != null ? owner.getId() : null;
   }
 
+  @Transient
+  @JsonProperty("deviceId")
+  public Long getDeviceId() {
+    return device != null ? device.getId() : null;
+  }
+
   // ---------- getters/setters ----------
   public Long getId() { return id; }
   public void setId(Long id) { this.id = id; }
@@ -49,6 +61,9 @@ public class Recommendation {
   public User getOwner() { return owner; }
   public void setOwner(User owner) { this.owner = owner; }
 
+  public Device getDevice() { return device; }
+  public void setDevice(Device device) { this.device = device; }
+
   public String getMessage() { return message; }
   public void setMessage(String message) { this.message = message; }
 
@@ -0,0 +1,34 @@
+package com.luminav.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Avance del backfill de hourly_rollup por owner (RollupService.backfill): los rollups existen desde
+ * backfilledFrom hacia adelante; el backfill baja hora por hora hasta la lectura más antigua y se reanuda
+ * desde aquí tras un reinicio.
+ */
+@Entity @Table(name = "rollup_backfill")
+public class RollupBackfill {
+  // Id asignado (uno por owner); sin FK como hourly_rollup
+  @Id
+  @Column(name = "owner_id")
+  private Long ownerId;
+
+  @Column(nullable = false)
+  private Instant backfilledFrom; // hora UTC más antigua ya recalculada
+
+  private Instant floorHour;      // hora de la lectura más antigua (caliente o archivada); null = sin calcular
+
+  private Instant finishedAt;
+
+  // getters/setters
+  public Long getOwnerId() { return ownerId; }
+  public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+  public Instant getBackfilledFrom() { return backfilledFrom; }
+  public void setBackfilledFrom(Instant backfilledFrom) { this.backfilledFrom = backfilledFrom; }
+  public Instant getFloorHour() { return floorHour; }
+  public void setFloorHour(Instant floorHour) { this.floorHour = floorHour; }
+  public Instant getFinishedAt() { return finishedAt; }
+  public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -1,19 +1,35 @@
 package com.luminav.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Tariff {
   @Id @GeneratedValue(strategy=GenerationType.IDENTITY)
   private Long id;
-  @ManyToOne(optional=false) private User owner;
-  @Column(nullable=false) private double pricePerKwh;
+  @ManyToOne(fetch=FetchType.LAZY, optional=false) @JsonIgnore private User owner;
+  // Versión: rige desde esta hora hasta la siguiente versión del owner
+  @Column(nullable=false) private Instant effectiveFrom = Instant.EPOCH;
+  @Column(nullable=false) private double pricePerKwh; // precio fuera de las franjas
   private Integer peakStart; // 0-23
   private Integer peakEnd;   // 0-23
+  // Franjas TOU (pico, valle, intermedia; entre semana / fin de semana)
+  @OneToMany(mappedBy="tariff", cascade=CascadeType.ALL, orphanRemoval=true)
+  @OrderBy("startHour")
+  private List<TariffBand> bands = new ArrayList<>();
   // getters/setters
   public Long getId(){return id;} public void setId(Long id){this.id=id;}
   public User getOwner(){return owner;} public void setOwner(User o){this.owner=o;}
+  @Transient @JsonProperty("ownerId") public Long getOwnerId(){return owner != null ? owner.getId() : null;}
+  public Instant getEffectiveFrom(){return effectiveFrom;} public void setEffectiveFrom(Instant f){this.effectiveFrom=f;}
   public double getPricePerKwh(){return pricePerKwh;} public void setPricePerKwh(double p){this.pricePerKwh=p;}
   public Integer getPeakStart(){return peakStart;} public void setPeakStart(Integer s){this.peakStart=s;}
   public Integer getPeakEnd(){return peakEnd;} public void setPeakEnd(Integer e){this.peakEnd=e;}
-}
\ No newline at end of file
+  public List<TariffBand> getBands(){return bands;} public void setBands(List<TariffBand> b){this.bands=b;}
+}
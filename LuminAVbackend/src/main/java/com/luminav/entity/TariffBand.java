@@ -0,0 +1,47 @@
+package com.luminav.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+/**
+ * Franja horaria de una tarifa por horario de uso (TOU).
+ * [startHour, endHour) en hora local; si startHour == endHour cubre todo el día; puede cruzar medianoche.
+ */
+@Entity @Table(name = "tariff_band")
+public class TariffBand {
+  @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "tariff_id")
+  @JsonIgnore
+  private Tariff tariff;
+
+  // PEAK | OFF_PEAK | SHOULDER
+  @Column(nullable = false, length = 16)
+  private String name = "PEAK";
+
+  // ALL | WEEKDAY | WEEKEND
+  @Column(nullable = false, length = 8)
+  private String days = "ALL";
+
+  @Column(nullable = false) private int startHour; // 0-23
+  @Column(nullable = false) private int endHour;   // 0-23
+  @Column(nullable = false) private double pricePerKwh;
+
+  // getters/setters
+  public Long getId() { return id; }
+  public void setId(Long id) { this.id = id; }
+  public Tariff getTariff() { return tariff; }
+  public void setTariff(Tariff tariff) { this.tariff = tariff; }
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+  public String getDays() { return days; }
+  public void setDays(String days) { this.days = days; }
+  public int getStartHour() { return startHour; }
+  public void setStartHour(int startHour) { this.startHour = startHour; }
+  public int getEndHour() { return endHour; }
+  public void setEndHour(int endHour) { this.endHour = endHour; }
+  public double getPricePerKwh() { return pricePerKwh; }
+  public void setPricePerKwh(double pricePerKwh) { this.pricePerKwh = pricePerKwh; }
+}
@@ -1,11 +1,14 @@
 package com.luminav.entity;
 
 
+	import com.fasterxml.jackson.annotation.JsonIgnore;
+	import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 	import jakarta.persistence.*;
 	import java.time.Instant;
 
 
 @Entity @Table(name="users")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
 	 @Id @GeneratedValue(strategy=GenerationType.IDENTITY)
 	 private Long id;
@@ -20,6 +23,7 @@ public class User {
 	  private String fullName;
 
 	  @Column(nullable=false)
+	  @JsonIgnore // nunca sale en el JSON
 	  private String passwordHash;
 
 	  @Column(nullable=false)
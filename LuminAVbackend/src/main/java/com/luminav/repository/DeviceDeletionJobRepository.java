@@ -0,0 +1,22 @@
+package com.luminav.repository;
+
+import com.luminav.entity.DeviceDeletionJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DeviceDeletionJobRepository extends JpaRepository<DeviceDeletionJob, Long> {
+  Optional<DeviceDeletionJob> findByIdAndOwnerId(Long id, Long ownerId);
+
+  // Jobs pendientes cuyo reintento ya venció, en orden de llegada (el purgado los atiende FIFO)
+  @Query("select j from DeviceDeletionJob j where j.status in :statuses"
+      + " and (j.nextAttemptAt is null or j.nextAttemptAt <= :now) order by j.createdAt")
+  List<DeviceDeletionJob> findDue(@Param("statuses") Collection<String> statuses, @Param("now") Instant now,
+                                  Pageable pageable);
+}
@@ -1,11 +1,23 @@
 package com.luminav.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.luminav.entity.Device;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface DeviceRepository extends JpaRepository<Device, Long> {
-  List<Device> findByOwnerId(Long ownerId);
-}
\ No newline at end of file
+  // Excluye dispositivos marcados para borrado (tombstone)
+  List<Device> findByOwner_IdAndDeletedAtIsNull(Long ownerId);
+
+  // [ownerId, deviceId] de los dispositivos activos de un bloque de owners
+  @Query("select d.owner.id, d.id from Device d where d.owner.id in :ownerIds and d.deletedAt is null")
+  List<Object[]> activeIdsByOwner(@Param("ownerIds") Collection<Long> ownerIds);
+
+  // [ownerId, deviceId] de todos los dispositivos activos (estado en vivo al arrancar)
+  @Query("select d.owner.id, d.id from Device d where d.deletedAt is null")
+  List<Object[]> allActiveIds();
+}
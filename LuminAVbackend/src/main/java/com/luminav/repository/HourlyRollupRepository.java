@@ -0,0 +1,61 @@
+package com.luminav.repository;
+
+import com.luminav.entity.HourlyRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface HourlyRollupRepository extends JpaRepository<HourlyRollup, Long> {
+
+  // kWh por hora del owner (suma de dispositivos): [bucketStart, kwh]
+  @Query("select r.bucketStart, sum(r.kwh) from HourlyRollup r where r.ownerId = :ownerId"
+      + " and r.bucketStart >= :from and r.bucketStart < :to group by r.bucketStart")
+  List<Object[]> sumKwhByBucket(@Param("ownerId") Long ownerId, @Param("from") Instant from, @Param("to") Instant to);
+
+  // Baseline por dispositivo sobre un conjunto de horas: [deviceId, sum(kwh)]
+  @Query("select r.deviceId, sum(r.kwh) from HourlyRollup r where r.ownerId = :ownerId"
+      + " and r.bucketStart in :buckets group by r.deviceId")
+  List<Object[]> sumKwhByDeviceForBuckets(@Param("ownerId") Long ownerId, @Param("buckets") Collection<Instant> buckets);
+
+  // Serie del dashboard: [bucketStart, sum(kwh), sum(cost)] ordenada por hora
+  @Query("select r.bucketStart, sum(r.kwh), sum(r.cost) from HourlyRollup r where r.ownerId = :ownerId"
+      + " and r.bucketStart >= :from and r.bucketStart < :to group by r.bucketStart order by r.bucketStart")
+  List<Object[]> seriesByBucket(@Param("ownerId") Long ownerId, @Param("from") Instant from, @Param("to") Instant to);
+
+  // Top dispositivos: [deviceId, name, sum(kwh)]
+  @Query("select r.deviceId, d.name, sum(r.kwh) from HourlyRollup r, Device d where d.id = r.deviceId"
+      + " and r.ownerId = :ownerId and r.bucketStart >= :from and r.bucketStart < :to"
+      + " group by r.deviceId, d.name order by sum(r.kwh) desc")
+  List<Object[]> usageByDevice(@Param("ownerId") Long ownerId, @Param("from") Instant from, @Param("to") Instant to,
+                               Pageable pageable);
+
+  // Desglose por franja: [band, sum(kwh), sum(cost)]
+  @Query("select r.band, sum(r.kwh), sum(r.cost) from HourlyRollup r where r.ownerId = :ownerId"
+      + " and r.bucketStart >= :from and r.bucketStart < :to group by r.band")
+  List<Object[]> usageByBand(@Param("ownerId") Long ownerId, @Param("from") Instant from, @Param("to") Instant to);
+
+  // Re-tarifado: solo las horas afectadas (periodo de la versión [from, to), por hora local y tipo de día)
+  @Modifying
+  @Query("update HourlyRollup r set r.cost = r.kwh * :price, r.band = :band where r.ownerId = :ownerId"
+      + " and r.bucketStart >= :from and (:to is null or r.bucketStart < :to)"
+      + " and r.weekend = :weekend and r.localHour in :hours")
+  int reprice(@Param("ownerId") Long ownerId, @Param("from") Instant from, @Param("to") Instant to,
+              @Param("weekend") boolean weekend,
+              @Param("hours") Collection<Integer> hours, @Param("band") String band, @Param("price") double price);
+
+  @Modifying
+  @Query("delete from HourlyRollup r where r.ownerId in :ownerIds and r.bucketStart = :bucketStart")
+  int deleteBucket(@Param("ownerIds") Collection<Long> ownerIds, @Param("bucketStart") Instant bucketStart);
+
+  @Transactional
+  @Modifying
+  @Query("delete from HourlyRollup r where r.deviceId = :deviceId")
+  int deleteByDeviceId(@Param("deviceId") Long deviceId);
+}
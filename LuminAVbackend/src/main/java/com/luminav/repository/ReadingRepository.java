@@ -1,12 +1,113 @@
 package com.luminav.repository;
 
 import com.luminav.entity.Reading;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ReadingRepository extends JpaRepository<Reading, Long> {
-  List<Reading> findByDeviceOwnerIdAndRecordedAtBetween(Long ownerId, Instant from, Instant to);
-  List<Reading> findByDeviceOwnerIdAndRecordedAtBetweenAndDeviceId(Long ownerId, Instant from, Instant to, Long deviceId);
+  // Los dispositivos con tombstone (deletedAt) ya no aparecen aunque sus lecturas sigan purgándose.
+  // El JSON incluye el dispositivo (id, nombre): se trae en la misma consulta
+  @EntityGraph(attributePaths = "device")
+  @Query("select r from Reading r where r.device.owner.id = :ownerId and r.device.deletedAt is null"
+      + " and r.recordedAt between :from and :to")
+  List<Reading> findByDeviceOwnerIdAndRecordedAtBetween(@Param("ownerId") Long ownerId,
+                                                        @Param("from") Instant from,
+                                                        @Param("to") Instant to);
+
+  @EntityGraph(attributePaths = "device")
+  @Query("select r from Reading r where r.device.owner.id = :ownerId and r.device.deletedAt is null"
+      + " and r.recordedAt between :from and :to and r.device.id = :deviceId")
+  List<Reading> findByDeviceOwnerIdAndRecordedAtBetweenAndDeviceId(@Param("ownerId") Long ownerId,
+                                                                   @Param("from") Instant from,
+                                                                   @Param("to") Instant to,
+                                                                   @Param("deviceId") Long deviceId);
+
+  @EntityGraph(attributePaths = "device")
+  Optional<Reading> findFirstByDeviceIdAndRecordedAt(Long deviceId, Instant recordedAt);
+
+  // Ventana del agente por dispositivo: [deviceId, name, watt nominal, sum(watt*minutes), sum(minutes)]
+  @Query("select d.id, d.name, d.watt, sum(r.watt * r.minutes), sum(r.minutes) from Reading r join r.device d"
+      + " where d.owner.id = :ownerId and d.deletedAt is null and r.recordedAt between :from and :to"
+      + " group by d.id, d.name, d.watt")
+  List<Object[]> windowUsageByDevice(@Param("ownerId") Long ownerId,
+                                     @Param("from") Instant from,
+                                     @Param("to") Instant to);
+
+  // Lecturas de horas sin rollup (bordes del rango del dashboard, hora en curso), dos ventanas [a, b) en una consulta:
+  // [deviceId, name, recordedAt, watt*minutes]
+  @Query("select d.id, d.name, r.recordedAt, r.watt * r.minutes from Reading r join r.device d"
+      + " where d.owner.id = :ownerId and d.deletedAt is null"
+      + " and ((r.recordedAt >= :from1 and r.recordedAt < :to1) or (r.recordedAt >= :from2 and r.recordedAt < :to2))")
+  List<Object[]> usageRows(@Param("ownerId") Long ownerId,
+                           @Param("from1") Instant from1, @Param("to1") Instant to1,
+                           @Param("from2") Instant from2, @Param("to2") Instant to2);
+
+  // Recalculo de rollups: [ownerId, deviceId, sum(watt*minutes), count] por dispositivo en [from, to)
+  @Query("select d.owner.id, d.id, sum(r.watt * r.minutes), count(r) from Reading r join r.device d"
+      + " where d.owner.id in :ownerIds and d.deletedAt is null and r.recordedAt >= :from and r.recordedAt < :to"
+      + " group by d.owner.id, d.id")
+  List<Object[]> sumWattMinutesByDevice(@Param("ownerIds") Collection<Long> ownerIds,
+                                        @Param("from") Instant from,
+                                        @Param("to") Instant to);
+
+  // Lectura más antigua por dispositivo activo de un bloque de owners (backfill de rollups): [ownerId, min(recordedAt)]
+  @Query("select d.owner.id, min(r.recordedAt) from Reading r join r.device d"
+      + " where d.owner.id in :ownerIds and d.deletedAt is null group by d.owner.id, d.id")
+  List<Object[]> oldestByDevice(@Param("ownerIds") Collection<Long> ownerIds);
+
+  // Estado en vivo al arrancar, acotado a [from, ∞) sobre el índice (device_id, recorded_at).
+  // Última lectura de cada dispositivo en la ventana: [deviceId, recordedAt, watt]
+  @Query("select r.device.id, r.recordedAt, r.watt from Reading r where r.device.id in :deviceIds"
+      + " and r.recordedAt >= :from and (r.device.id, r.recordedAt) in (select r2.device.id, max(r2.recordedAt)"
+      + " from Reading r2 where r2.device.id in :deviceIds and r2.recordedAt >= :from group by r2.device.id)")
+  List<Object[]> latestPerDeviceSince(@Param("deviceIds") Collection<Long> deviceIds, @Param("from") Instant from);
+
+  // Energía desde 'from' por dispositivo, solo filas con id <= maxId: [deviceId, sum(watt*minutes)]
+  @Query("select r.device.id, sum(r.watt * r.minutes) from Reading r where r.device.id in :deviceIds"
+      + " and r.recordedAt >= :from and r.id <= :maxId group by r.device.id")
+  List<Object[]> wattMinutesByDeviceSince(@Param("deviceIds") Collection<Long> deviceIds, @Param("from") Instant from,
+                                          @Param("maxId") long maxId);
+
+  @Query("select coalesce(max(r.id), 0) from Reading r")
+  long maxId();
+
+  // Archivo frío: dispositivos con lecturas en meses cerrados (recorre el índice (device_id, recorded_at))
+  @Query("select r.device.id from Reading r group by r.device.id having min(r.recordedAt) < :cutoff")
+  List<Long> deviceIdsWithReadingsBefore(@Param("cutoff") Instant cutoff);
+
+  @Query("select min(r.recordedAt) from Reading r where r.device.id = :deviceId")
+  Instant oldestRecordedAt(@Param("deviceId") Long deviceId);
+
+  // [id, recordedAt, watt, minutes] ordenado: entrada del codificador de un mes
+  @Query("select r.id, r.recordedAt, r.watt, r.minutes from Reading r where r.device.id = :deviceId"
+      + " and r.recordedAt >= :from and r.recordedAt < :to order by r.recordedAt")
+  List<Object[]> rowsForArchive(@Param("deviceId") Long deviceId,
+                                @Param("from") Instant from,
+                                @Param("to") Instant to);
+
+  // Exactamente las filas que se codificaron: una fila de una transacción aún abierta al leer (IDENTITY le dio
+  // un id menor) no estaba en el bloque y se queda caliente hasta la próxima corrida
+  @Transactional
+  @Modifying
+  @Query("delete from Reading r where r.id in :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+
+  // Timestamps calientes de un dispositivo en [from, to): descartar del archivo las filas que están en las dos capas
+  @Query("select r.recordedAt from Reading r where r.device.id = :deviceId and r.recordedAt >= :from and r.recordedAt < :to")
+  List<Instant> recordedAtBetween(@Param("deviceId") Long deviceId, @Param("from") Instant from, @Param("to") Instant to);
+
+  // Borrado por lotes: cada llamada es una transacción corta (no bloquea la tabla completa)
+  @Transactional
+  @Modifying
+  @Query(value = "DELETE FROM reading WHERE device_id = :deviceId LIMIT :limit", nativeQuery = true)
+  int deleteBatchByDeviceId(@Param("deviceId") Long deviceId, @Param("limit") int limit);
 }
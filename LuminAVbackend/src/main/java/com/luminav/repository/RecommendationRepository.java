@@ -3,6 +3,10 @@ package com.luminav.repository;
 import com.luminav.entity.Recommendation;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -18,4 +22,10 @@ public interface RecommendationRepository extends JpaRepository<Recommendation,
   List<Recommendation> findByOwner_IdOrderByCreatedAtDesc(Long ownerId, Pageable pageable);
 
   List<Recommendation> findByOwner_IdAndStatusOrderByCreatedAtDesc(Long ownerId, String status, Pageable pageable);
+
+  // Antes de borrar un dispositivo: sus recomendaciones quedan a nivel hogar
+  @Transactional
+  @Modifying
+  @Query("update Recommendation r set r.device = null where r.device.id = :deviceId")
+  int detachDevice(@Param("deviceId") Long deviceId);
 }
@@ -0,0 +1,36 @@
+package com.luminav.repository;
+
+import com.luminav.entity.RollupBackfill;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface RollupBackfillRepository extends JpaRepository<RollupBackfill, Long> {
+
+  // Pendientes, los de historia más reciente primero
+  List<RollupBackfill> findByFinishedAtIsNullOrderByBackfilledFromDesc(Pageable pageable);
+
+  @Transactional
+  @Modifying
+  @Query("update RollupBackfill b set b.backfilledFrom = :hour where b.ownerId in :ownerIds")
+  int advance(@Param("ownerIds") Collection<Long> ownerIds, @Param("hour") Instant hour);
+
+  @Transactional
+  @Modifying
+  @Query("update RollupBackfill b set b.finishedAt = :at where b.ownerId in :ownerIds")
+  int finish(@Param("ownerIds") Collection<Long> ownerIds, @Param("at") Instant at);
+
+  // Una sentencia para todos los owners sin avance registrado (no un SELECT+INSERT por owner)
+  @Transactional
+  @Modifying
+  @Query(value = "INSERT INTO rollup_backfill (owner_id, backfilled_from) SELECT u.id, :from FROM users u"
+      + " WHERE NOT EXISTS (SELECT 1 FROM rollup_backfill b WHERE b.owner_id = u.id)", nativeQuery = true)
+  int startMissing(@Param("from") Instant from);
+}
@@ -1,11 +1,19 @@
 package com.luminav.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.luminav.entity.Tariff;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
 
 public interface TariffRepository extends JpaRepository<Tariff, Long> {
-  Optional<Tariff> findByOwnerId(Long ownerId);
+  // Versiones de la tarifa de un owner, la más reciente primero (TariffPricing.inForce elige la vigente)
+  @EntityGraph(attributePaths = "bands")
+  List<Tariff> findByOwner_IdOrderByEffectiveFromDesc(Long ownerId);
+
+  // Todas las versiones de un bloque de owners (recalculo de rollups)
+  @EntityGraph(attributePaths = "bands")
+  List<Tariff> findByOwner_IdIn(Collection<Long> ownerIds);
 }
\ No newline at end of file
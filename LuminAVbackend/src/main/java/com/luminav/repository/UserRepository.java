@@ -1,14 +1,26 @@
 package com.luminav.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.luminav.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByUsername(String username);
   Optional<User> findByEmail(String email);
+
+  // Solo ids: los recorridos por owner (agente, rollups) no necesitan cargar usuarios
+  @Query("select u.id from User u")
+  List<Long> findAllIds();
+
+  // Ids en orden a partir de un cursor (recorridos por tandas)
+  @Query("select u.id from User u where u.id > :after order by u.id")
+  List<Long> findIdsAfter(@Param("after") long after, Pageable page);
 }     
 
 
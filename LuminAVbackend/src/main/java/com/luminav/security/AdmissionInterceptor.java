@@ -0,0 +1,169 @@
+package com.luminav.security;
+
+import com.luminav.config.AdmissionProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admisión antes de llegar al controller:
+ *  1) token bucket por tenant (owner del token verificado, si no IP remota) y clase de endpoint -> 429.
+ *     X-Gateway-Id no cuenta: lo elige el cliente y rotarlo daría un bucket nuevo por petición.
+ *     Los buckets se guardan en un LRU de app.admission.max-tenants entradas
+ *  2) límite de concurrencia por clase -> 503
+ *  3) si hay hilos esperando conexión en Hikari, ANALYTICS se rechaza primero -> 503
+ * Los rechazos se cuentan en luminav.admission.rejected{endpoint, reason}.
+ */
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+  public enum EndpointClass { INGEST, ANALYTICS, OTHER }
+
+  private static final String PERMIT_ATTR = AdmissionInterceptor.class.getName() + ".permit";
+
+  private final AdmissionProperties props;
+  private final TokenService tokens;
+  private final HikariDataSource pool; // null si no hay Hikari: sin señal de presión
+  private final MeterRegistry metrics;
+  private final Map<String, TokenBucket> buckets;
+  private final Map<EndpointClass, Semaphore> inFlight = new EnumMap<>(EndpointClass.class);
+
+  public AdmissionInterceptor(AdmissionProperties props, TokenService tokens, HikariDataSource pool, MeterRegistry metrics) {
+    this.props = props;
+    this.tokens = tokens;
+    this.pool = pool;
+    this.metrics = metrics;
+    int maxTenants = Math.max(1, props.getMaxTenants());
+    this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+        return size() > maxTenants;
+      }
+    };
+    for (EndpointClass c : EndpointClass.values()) {
+      int max = limit(c).getMaxConcurrent();
+      if (max <= 0) continue;
+      Semaphore s = new Semaphore(max);
+      inFlight.put(c, s);
+      Gauge.builder("luminav.admission.inflight", s, x -> max - x.availablePermits())
+          .tag("endpoint", c.name()).register(metrics);
+    }
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+    // el re-despacho de una respuesta asíncrona ya fue admitido
+    if (!props.isEnabled() || request.getDispatcherType() == DispatcherType.ASYNC) return true;
+    EndpointClass c = classify(request);
+
+    long retryAfter = bucket(c, tenant(request)).tryAcquire();
+    if (retryAfter > 0) return reject(response, c, "rate", HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+
+    if (c == EndpointClass.ANALYTICS && poolSaturated()) {
+      return reject(response, c, "pool", HttpStatus.SERVICE_UNAVAILABLE, 1);
+    }
+    Semaphore s = inFlight.get(c);
+    if (s != null) {
+      if (!s.tryAcquire()) return reject(response, c, "concurrency", HttpStatus.SERVICE_UNAVAILABLE, 1);
+      request.setAttribute(PERMIT_ATTR, s);
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    release(request);
+  }
+
+  // en peticiones asíncronas el permiso cubre solo el hilo de Tomcat, no la espera del resultado
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    release(request);
+  }
+
+  static EndpointClass classify(HttpServletRequest request) {
+    String path = request.getRequestURI().substring(request.getContextPath().length());
+    boolean get = "GET".equalsIgnoreCase(request.getMethod());
+    if (path.startsWith("/api/readings")) return get ? EndpointClass.ANALYTICS : EndpointClass.INGEST;
+    if (get && (path.startsWith("/api/dashboard") || path.startsWith("/api/forecast")
+        || path.startsWith("/api/recommendations"))) {
+      return EndpointClass.ANALYTICS;
+    }
+    return EndpointClass.OTHER;
+  }
+
+  private String tenant(HttpServletRequest request) {
+    String auth = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if (auth != null && auth.regionMatches(true, 0, "Bearer ", 0, 7)) {
+      // token inválido: se trata como anónimo y el resolver responde 401 después
+      Long owner = tokens.verify(auth.substring(7).trim()).orElse(null);
+      if (owner != null) return "o:" + owner;
+    }
+    return "ip:" + request.getRemoteAddr();
+  }
+
+  // LRU acotado: al llenarse sale el bucket usado hace más tiempo (el más probable de estar lleno),
+  // nunca todos a la vez, así un tenant activo no recupera su ráfaga porque lleguen muchas IP nuevas
+  synchronized TokenBucket bucket(EndpointClass c, String tenant) {
+    String key = c.name() + '|' + tenant;
+    TokenBucket b = buckets.get(key);
+    if (b == null) {
+      AdmissionProperties.Limit l = limit(c);
+      b = new TokenBucket(l.getRatePerSecond(), l.getBurst(), System::nanoTime);
+      buckets.put(key, b);
+    }
+    return b;
+  }
+
+  synchronized int tenantCount() {
+    return buckets.size();
+  }
+
+  private boolean poolSaturated() {
+    if (pool == null) return false;
+    HikariPoolMXBean mx = pool.getHikariPoolMXBean();
+    return mx != null && mx.getThreadsAwaitingConnection() > 0;
+  }
+
+  private AdmissionProperties.Limit limit(EndpointClass c) {
+    return switch (c) {
+      case INGEST -> props.getIngest();
+      case ANALYTICS -> props.getAnalytics();
+      case OTHER -> props.getOther();
+    };
+  }
+
+  private boolean reject(HttpServletResponse response, EndpointClass c, String reason,
+                         HttpStatus status, long retryAfterSeconds) throws IOException {
+    Counter.builder("luminav.admission.rejected")
+        .tag("endpoint", c.name()).tag("reason", reason)
+        .register(metrics).increment();
+    response.setStatus(status.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.setContentType("text/plain;charset=UTF-8");
+    response.getWriter().write(status == HttpStatus.TOO_MANY_REQUESTS
+        ? "Demasiadas solicitudes, reintente más tarde" : "Servicio saturado, reintente más tarde");
+    return false;
+  }
+
+  private static void release(HttpServletRequest request) {
+    Object permit = request.getAttribute(PERMIT_ATTR);
+    if (permit instanceof Semaphore s) {
+      request.removeAttribute(PERMIT_ATTR);
+      s.release();
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.luminav.security;
+
+import java.lang.annotation.*;
+
+/**
+ * Inyecta el id del owner autenticado (token Bearer) en un parámetro {@code Long} del controller.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentOwner {}
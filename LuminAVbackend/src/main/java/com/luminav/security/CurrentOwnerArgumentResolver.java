@@ -0,0 +1,51 @@
+package com.luminav.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resuelve {@link CurrentOwner} desde "Authorization: Bearer &lt;token&gt;".
+ * Con allowOwnerParam=true acepta además el antiguo ?ownerId= (solo para migrar clientes).
+ */
+public class CurrentOwnerArgumentResolver implements HandlerMethodArgumentResolver {
+
+  private final TokenService tokens;
+  private final boolean allowOwnerParam;
+
+  public CurrentOwnerArgumentResolver(TokenService tokens, boolean allowOwnerParam) {
+    this.tokens = tokens;
+    this.allowOwnerParam = allowOwnerParam;
+  }
+
+  @Override
+  public boolean supportsParameter(MethodParameter parameter) {
+    return parameter.hasParameterAnnotation(CurrentOwner.class) && Long.class.equals(parameter.getParameterType());
+  }
+
+  @Override
+  public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mav,
+                                NativeWebRequest request, WebDataBinderFactory binderFactory) {
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+      return tokens.verify(header.substring(7).trim())
+          .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token inválido o expirado"));
+    }
+    if (allowOwnerParam) {
+      String ownerId = request.getParameter("ownerId");
+      if (ownerId != null && !ownerId.isBlank()) {
+        try {
+          return Long.valueOf(ownerId);
+        } catch (NumberFormatException ex) {
+          throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ownerId inválido");
+        }
+      }
+    }
+    throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token requerido");
+  }
+}
@@ -0,0 +1,36 @@
+package com.luminav.security;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket con recarga perezosa: cada intento recalcula los tokens según el tiempo transcurrido.
+ */
+public class TokenBucket {
+
+  private final double ratePerSecond;
+  private final double capacity;
+  private final LongSupplier nanoClock;
+  private double tokens;
+  private long lastRefill;
+
+  public TokenBucket(double ratePerSecond, int burst, LongSupplier nanoClock) {
+    this.ratePerSecond = ratePerSecond;
+    this.capacity = Math.max(1, burst);
+    this.nanoClock = nanoClock;
+    this.tokens = capacity;
+    this.lastRefill = nanoClock.getAsLong();
+  }
+
+  /** @return 0 si se admitió; si no, segundos (redondeados hacia arriba) hasta que haya un token */
+  public synchronized long tryAcquire() {
+    long now = nanoClock.getAsLong();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerSecond / 1e9);
+    lastRefill = now;
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    if (ratePerSecond <= 0) return 60;
+    return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerSecond));
+  }
+}
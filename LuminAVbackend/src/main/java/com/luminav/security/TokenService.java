@@ -0,0 +1,109 @@
+package com.luminav.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens de sesión sin estado: "ownerId.expiraEpochSeg.firmaHmacSha256" (base64url).
+ * La verificación es un HMAC (microsegundos) y además se cachea por token.
+ *
+ * app.auth.token-secret      secreto compartido entre instancias (si falta se genera uno por arranque)
+ * app.auth.token-ttl-minutes=720
+ * app.auth.token-cache-size=10000
+ */
+@Service
+public class TokenService {
+
+  public record Issued(String token, Instant expiresAt) {}
+
+  private record Verified(long ownerId, long expiresEpochSec) {}
+
+  private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+  private final byte[] secret;
+  private final Duration ttl;
+  private final int cacheSize;
+  private final Map<String, Verified> cache = new ConcurrentHashMap<>();
+  private final ThreadLocal<Mac> mac;
+
+  public TokenService(@Value("${app.auth.token-secret:}") String secret,
+                      @Value("${app.auth.token-ttl-minutes:720}") long ttlMinutes,
+                      @Value("${app.auth.token-cache-size:10000}") int cacheSize) {
+    if (secret == null || secret.isBlank()) {
+      this.secret = new byte[32];
+      new SecureRandom().nextBytes(this.secret);
+    } else {
+      this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+    this.ttl = Duration.ofMinutes(ttlMinutes);
+    this.cacheSize = cacheSize;
+    this.mac = ThreadLocal.withInitial(this::newMac);
+  }
+
+  public Issued issue(long ownerId) {
+    Instant exp = Instant.now().plus(ttl);
+    String payload = ownerId + "." + exp.getEpochSecond();
+    return new Issued(payload + "." + sign(payload), exp);
+  }
+
+  /** Retorna el ownerId si el token tiene firma válida y no ha expirado */
+  public Optional<Long> verify(String token) {
+    if (token == null || token.isBlank()) return Optional.empty();
+    long now = Instant.now().getEpochSecond();
+
+    Verified v = cache.get(token);
+    if (v == null) {
+      v = parse(token);
+      if (v == null) return Optional.empty();
+      if (cache.size() >= cacheSize) cache.clear(); // tope de memoria simple
+      cache.put(token, v);
+    }
+    if (v.expiresEpochSec() <= now) {
+      cache.remove(token);
+      return Optional.empty();
+    }
+    return Optional.of(v.ownerId());
+  }
+
+  private Verified parse(String token) {
+    int last = token.lastIndexOf('.');
+    int first = token.indexOf('.');
+    if (first <= 0 || last <= first) return null;
+    String payload = token.substring(0, last);
+    byte[] expected = sign(payload).getBytes(StandardCharsets.US_ASCII);
+    byte[] actual = token.substring(last + 1).getBytes(StandardCharsets.US_ASCII);
+    if (!MessageDigest.isEqual(expected, actual)) return null;
+    try {
+      return new Verified(Long.parseLong(token.substring(0, first)), Long.parseLong(token.substring(first + 1, last)));
+    } catch (NumberFormatException ex) {
+      return null;
+    }
+  }
+
+  private String sign(String payload) {
+    return B64.encodeToString(mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private Mac newMac() {
+    try {
+      Mac m = Mac.getInstance("HmacSHA256");
+      m.init(new SecretKeySpec(secret, "HmacSHA256"));
+      return m;
+    } catch (GeneralSecurityException ex) {
+      throw new IllegalStateException("HmacSHA256 no disponible", ex);
+    }
+  }
+}
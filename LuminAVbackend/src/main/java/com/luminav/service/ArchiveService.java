@@ -0,0 +1,108 @@
+package com.luminav.service;
+
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.ReadingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mueve los meses cerrados (anteriores a ReadingArchive.cutoff()) de la tabla reading al archivo frío.
+ * Por (dispositivo, mes): leer filas ordenadas -> escribir el bloque (fsync) -> borrar en lotes solo las filas
+ * leídas (por id). Un fallo por dispositivo se cuenta en luminav.archive.failures y se reintenta.
+ * Si el proceso cae entre escribir y borrar, la fila queda en las dos capas: en todas las lecturas (y al volver
+ * a mezclar en el archivo) gana la caliente, y la siguiente corrida la mueve sin duplicar.
+ * Los rollups no cambian: los datos se mueven, no se modifican.
+ *
+ * app.archive.enabled=false          borra filas de la tabla caliente: se activa explícitamente
+ * app.archive.cron=0 30 3 * * *
+ * app.archive.delete-batch-size=5000
+ */
+@Service
+public class ArchiveService {
+
+  private final ReadingRepository readings;
+  private final DeviceRepository devices;
+  private final ReadingArchive archive;
+  private final MeterRegistry metrics;
+
+  @Value("${app.archive.enabled:false}")
+  private boolean enabled;
+
+  @Value("${app.archive.delete-batch-size:5000}")
+  private int deleteBatchSize;
+
+  public ArchiveService(ReadingRepository readings, DeviceRepository devices, ReadingArchive archive,
+                        MeterRegistry metrics) {
+    this.readings = readings;
+    this.devices = devices;
+    this.archive = archive;
+    this.metrics = metrics;
+  }
+
+  @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+  public void archiveClosedMonths() {
+    if (!enabled) return;
+    Instant cutoff = archive.cutoff();
+    for (Long deviceId : readings.deviceIdsWithReadingsBefore(cutoff)) {
+      // los dispositivos con tombstone los limpia el purgado
+      if (devices.findById(deviceId).filter(d -> d.getDeletedAt() == null).isEmpty()) continue;
+      try {
+        long moved = archiveDevice(deviceId, cutoff);
+        if (moved > 0) Counter.builder("luminav.archive.rows").register(metrics).increment(moved);
+      } catch (RuntimeException ex) {
+        // se reintenta en la próxima ejecución; lo ya escrito se mezcla sin duplicar
+        Counter.builder("luminav.archive.failures")
+            .tag("exception", ex.getClass().getSimpleName())
+            .register(metrics).increment();
+      }
+    }
+  }
+
+  /** Archiva los meses del dispositivo anteriores a cutoff; retorna las filas movidas */
+  public long archiveDevice(Long deviceId, Instant cutoff) {
+    Instant oldest = readings.oldestRecordedAt(deviceId);
+    if (oldest == null || !oldest.isBefore(cutoff)) return 0;
+    long moved = 0;
+    YearMonth last = ReadingArchive.monthOf(cutoff.minusMillis(1));
+    for (YearMonth m = ReadingArchive.monthOf(oldest); !m.isAfter(last); m = m.plusMonths(1)) {
+      Instant from = ReadingArchive.monthStart(m);
+      Instant to = ReadingArchive.monthStart(m.plusMonths(1));
+      if (to.isAfter(cutoff)) to = cutoff;
+      moved += archiveMonth(deviceId, m, from, to);
+    }
+    return moved;
+  }
+
+  private int archiveMonth(Long deviceId, YearMonth m, Instant from, Instant to) {
+    List<Object[]> rows = readings.rowsForArchive(deviceId, from, to);
+    if (rows.isEmpty()) return 0;
+    int n = rows.size();
+    long[] millis = new long[n];
+    int[] watts = new int[n];
+    int[] minutes = new int[n];
+    Long[] ids = new Long[n];
+    for (int i = 0; i < n; i++) {
+      Object[] r = rows.get(i);
+      ids[i] = (Long) r[0];
+      millis[i] = ((Instant) r[1]).toEpochMilli();
+      watts[i] = (Integer) r[2];
+      minutes[i] = (Integer) r[3];
+    }
+    archive.append(deviceId, m, millis, watts, minutes, n);
+
+    // lotes cortos: no bloquear la tabla mientras sigue la ingesta
+    int batch = Math.max(1, deleteBatchSize);
+    for (int i = 0; i < n; i += batch) {
+      readings.deleteByIds(Arrays.asList(ids).subList(i, Math.min(n, i + batch)));
+    }
+    return n;
+  }
+}
@@ -1,85 +1,237 @@
 package com.luminav.service;
 
 import com.luminav.dto.DashboardSummary;
-import com.luminav.entity.Device;
-import com.luminav.entity.Reading;
 import com.luminav.entity.Tariff;
-import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.HourlyRollupRepository;
 import com.luminav.repository.TariffRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class DashboardService {
-  private final ReadingRepository readings;
+  private final HourlyRollupRepository rollups;
+  private final ReadingQueryService readingQueries;
   private final TariffRepository tariffs;
 
-  private static final ZoneId ZONE = ZoneId.systemDefault();
+  // Misma TZ con la que se tarifan los rollups: etiquetas y franjas coinciden sin importar la TZ del servidor
+  private static final ZoneId ZONE = TariffPricing.ZONE;
   private static final DateTimeFormatter HOUR_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00");
   private static final DateTimeFormatter DAY_FMT  = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+  private static final DateTimeFormatter MONTH_FMT = DateTimeFormatter.ofPattern("yyyy-MM");
 
-  public DashboardService(ReadingRepository readings, TariffRepository tariffs) {
-    this.readings = readings;
+  // Con maxPoints: granularidad más fina con a lo sumo OVERSAMPLE*maxPoints buckets; LTTB recorta el resto
+  private static final int OVERSAMPLE = 4;
+  private static final int MAX_POINTS_CAP = 2000;
+  // LTTB conserva el primer y el último punto y elige al menos uno entre ellos
+  public static final int MIN_POINTS = 3;
+  private static final int TOP_DEVICES = 5;
+
+  public enum Granularity { HOUR, DAY, WEEK, MONTH }
+
+  public DashboardService(HourlyRollupRepository rollups, ReadingQueryService readingQueries, TariffRepository tariffs) {
+    this.rollups = rollups;
+    this.readingQueries = readingQueries;
     this.tariffs = tariffs;
   }
 
+  @Transactional(readOnly = true) // réplica de lectura si está configurada
   public DashboardSummary summarize(Long ownerId, Instant from, Instant to) {
-    List<Reading> list = readings.findByDeviceOwnerIdAndRecordedAtBetween(ownerId, from, to);
+    return summarize(ownerId, from, to, null);
+  }
 
-    double totalKwh = list.stream().mapToDouble(this::kwh).sum();
+  /**
+   * Rango [from, to). Las horas completas salen de hourly_rollup (kWh y costo ya calculados);
+   * los bordes parciales del rango y las horas desde la actual (aún sin rollup) salen de las lecturas,
+   * tarifadas igual que RollupService. Así el rango se respeta exacto y lo recién ingerido ya cuenta.
+   *
+   * maxPoints == null: byHour y byDay completos (comportamiento original).
+   * maxPoints != null: en su lugar "series" con a lo sumo maxPoints puntos y su granularidad;
+   * los totales, top y franjas no cambian (se calculan sobre todas las horas).
+   */
+  @Transactional(readOnly = true)
+  public DashboardSummary summarize(Long ownerId, Instant from, Instant to, Integer maxPoints) {
+    Instant fullFrom = ceilHour(from);
+    Instant currentHour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+    Instant fullTo = max(fullFrom, min(to.truncatedTo(ChronoUnit.HOURS), currentHour));
+    boolean hasFullHours = fullFrom.isBefore(fullTo);
 
-    // byHour
-    Map<String, Double> byHour = new TreeMap<>();
-    for (Reading r : list) {
-      String bucket = LocalDateTime.ofInstant(r.getRecordedAt(), ZONE)
-          .withMinute(0).withSecond(0).withNano(0).format(HOUR_FMT);
-      byHour.merge(bucket, kwh(r), Double::sum);
+    // kWh y costo por hora: rollups + horas sin rollup (no se solapan: el borde inicial es anterior a fullFrom)
+    TreeMap<Instant, double[]> hours = new TreeMap<>();
+    Map<Long, DeviceTotal> byDevice = new HashMap<>();
+    Map<String, double[]> byBand = new TreeMap<>();
+    if (hasFullHours) {
+      for (Object[] row : rollups.seriesByBucket(ownerId, fullFrom, fullTo)) {
+        add(hours, (Instant) row[0], ((Number) row[1]).doubleValue(), ((Number) row[2]).doubleValue());
+      }
+      for (Object[] r : rollups.usageByBand(ownerId, fullFrom, fullTo)) {
+        add(byBand, (String) r[0], ((Number) r[1]).doubleValue(), ((Number) r[2]).doubleValue());
+      }
     }
 
-    // byDay
-    Map<String, Double> byDay = new TreeMap<>();
-    for (Reading r : list) {
-      String bucket = LocalDateTime.ofInstant(r.getRecordedAt(), ZONE)
-          .toLocalDate().format(DAY_FMT);
-      byDay.merge(bucket, kwh(r), Double::sum);
+    Instant headTo = min(fullFrom, to);
+    List<ReadingQueryService.Usage> fresh = from.isBefore(headTo) || fullTo.isBefore(to)
+        ? readingQueries.usage(ownerId, from, headTo, fullTo, to)
+        : List.of();
+    if (!fresh.isEmpty()) {
+      List<Tariff> versions = tariffs.findByOwner_IdOrderByEffectiveFromDesc(ownerId);
+      for (ReadingQueryService.Usage u : fresh) {
+        Instant hour = u.recordedAt().truncatedTo(ChronoUnit.HOURS);
+        TariffPricing.Rate rate = TariffPricing.rateAt(TariffPricing.inForce(versions, hour), hour);
+        double kwh = u.wattMinutes() / 60_000.0;
+        double cost = kwh * rate.pricePerKwh();
+        add(hours, hour, kwh, cost);
+        add(byBand, rate.band(), kwh, cost);
+        byDevice.computeIfAbsent(u.deviceId(), id -> new DeviceTotal(u.deviceName())).kwh += kwh;
+      }
     }
 
-    // top devices
-    Map<Device, Double> byDevice = new HashMap<>();
-    for (Reading r : list) {
-      byDevice.merge(r.getDevice(), kwh(r), Double::sum);
+    // top devices: con horas frescas se necesitan todos para re-ordenar tras sumarlas
+    if (hasFullHours) {
+      Pageable page = fresh.isEmpty() ? PageRequest.of(0, TOP_DEVICES) : Pageable.unpaged();
+      for (Object[] r : rollups.usageByDevice(ownerId, fullFrom, fullTo, page)) {
+        byDevice.computeIfAbsent((Long) r[0], id -> new DeviceTotal((String) r[1])).kwh += ((Number) r[2]).doubleValue();
+      }
     }
     List<DashboardSummary.DeviceUsage> top = byDevice.entrySet().stream()
-        .sorted((a,b) -> Double.compare(b.getValue(), a.getValue()))
-        .limit(5)
-        .map(e -> new DashboardSummary.DeviceUsage(e.getKey().getId(), e.getKey().getName(), round3(e.getValue())))
+        .sorted(Comparator.comparingDouble((Map.Entry<Long, DeviceTotal> e) -> e.getValue().kwh).reversed())
+        .limit(TOP_DEVICES)
+        .map(e -> new DashboardSummary.DeviceUsage(e.getKey(), e.getValue().name, round3(e.getValue().kwh)))
+        .collect(Collectors.toList());
+
+    // pico / valle / intermedia
+    List<DashboardSummary.BandUsage> bands = byBand.entrySet().stream()
+        .map(e -> new DashboardSummary.BandUsage(e.getKey(), round3(e.getValue()[0]), round2(e.getValue()[1])))
         .collect(Collectors.toList());
 
-    // tarifa
-    double pricePerKwh = tariffs.findByOwnerId(ownerId)
-        .map(Tariff::getPricePerKwh).orElse(650.0); // COP/kWh por defecto
-    double totalCost = round2(totalKwh * pricePerKwh);
+    double totalKwh = 0, totalCost = 0;
+    Map<String, double[]> byHour = new TreeMap<>();
+    Map<String, double[]> byDay = new TreeMap<>();
+    for (Map.Entry<Instant, double[]> h : hours.entrySet()) {
+      double kwh = h.getValue()[0];
+      double cost = h.getValue()[1];
+      totalKwh += kwh;
+      totalCost += cost;
+      if (maxPoints != null) continue;
+      LocalDateTime t = LocalDateTime.ofInstant(h.getKey(), ZONE);
+      add(byHour, t.format(HOUR_FMT), kwh, cost);
+      add(byDay, t.toLocalDate().format(DAY_FMT), kwh, cost);
+    }
 
     DashboardSummary s = new DashboardSummary();
     s.totalKwh = round3(totalKwh);
-    s.totalCost = totalCost;
-    s.byHour = byHour.entrySet().stream()
-        .map(e -> new DashboardSummary.Point(e.getKey(), round3(e.getValue())))
-        .collect(Collectors.toList());
-    s.byDay = byDay.entrySet().stream()
-        .map(e -> new DashboardSummary.Point(e.getKey(), round3(e.getValue())))
-        .collect(Collectors.toList());
+    s.totalCost = round2(totalCost);
+    if (maxPoints == null) {
+      s.byHour = points(byHour);
+      s.byDay = points(byDay);
+    } else {
+      int target = targetPoints(maxPoints);
+      Granularity g = granularityFor(from, to, target);
+      s.granularity = g.name();
+      s.series = downsample(hours, g, target);
+    }
     s.topDevices = top;
+    s.byBand = bands;
     return s;
   }
 
-  private double kwh(Reading r) {
-    double hours = (r.getMinutes() == null ? 60 : r.getMinutes()) / 60.0;
-    return (r.getWatt() * hours) / 1000.0;
+  /** maxPoints (>= MIN_POINTS, lo valida el controller) acotado a MAX_POINTS_CAP: nunca devuelve más de lo pedido */
+  static int targetPoints(int maxPoints) {
+    return Math.min(maxPoints, MAX_POINTS_CAP);
+  }
+
+  /**
+   * La más fina cuyo número de buckets no supera OVERSAMPLE*maxPoints (si ninguna, MONTH).
+   * Horas: exactas, las que toca [from, to); días y semanas: estimado con un bucket extra por el borde.
+   */
+  static Granularity granularityFor(Instant from, Instant to, int maxPoints) {
+    long hours = Math.max(1, Duration.between(from.truncatedTo(ChronoUnit.HOURS), ceilHour(to)).toHours());
+    long limit = (long) maxPoints * OVERSAMPLE;
+    if (hours <= limit) return Granularity.HOUR;
+    if (hours / 24 + 1 <= limit) return Granularity.DAY;
+    if (hours / (24 * 7) + 1 <= limit) return Granularity.WEEK;
+    return Granularity.MONTH;
+  }
+
+  // Horas ordenadas (TreeMap): se agregan al vuelo por bucket y luego LTTB sobre kWh
+  private List<DashboardSummary.Point> downsample(SortedMap<Instant, double[]> hours, Granularity g, int maxPoints) {
+    List<ZonedDateTime> starts = new ArrayList<>();
+    List<double[]> sums = new ArrayList<>();
+    ZonedDateTime current = null;
+    for (Map.Entry<Instant, double[]> h : hours.entrySet()) {
+      ZonedDateTime start = bucketStart(ZonedDateTime.ofInstant(h.getKey(), ZONE), g);
+      if (!start.equals(current)) {
+        current = start;
+        starts.add(start);
+        sums.add(new double[2]);
+      }
+      double[] acc = sums.get(sums.size() - 1);
+      acc[0] += h.getValue()[0];
+      acc[1] += h.getValue()[1];
+    }
+
+    double[] x = new double[starts.size()];
+    double[] y = new double[starts.size()];
+    for (int i = 0; i < x.length; i++) {
+      x[i] = starts.get(i).toEpochSecond();
+      y[i] = sums.get(i)[0];
+    }
+    List<DashboardSummary.Point> out = new ArrayList<>(Math.min(maxPoints, x.length));
+    for (int i : Downsampling.lttb(x, y, maxPoints)) {
+      out.add(new DashboardSummary.Point(label(starts.get(i), g), round3(sums.get(i)[0]), round2(sums.get(i)[1])));
+    }
+    return out;
+  }
+
+  private static ZonedDateTime bucketStart(ZonedDateTime t, Granularity g) {
+    return switch (g) {
+      case HOUR -> t.truncatedTo(ChronoUnit.HOURS);
+      case DAY -> t.truncatedTo(ChronoUnit.DAYS);
+      case WEEK -> t.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).truncatedTo(ChronoUnit.DAYS);
+      case MONTH -> t.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+    };
+  }
+
+  private static String label(ZonedDateTime start, Granularity g) {
+    return switch (g) {
+      case HOUR -> start.format(HOUR_FMT);
+      case DAY, WEEK -> start.format(DAY_FMT); // semana: fecha del lunes
+      case MONTH -> start.format(MONTH_FMT);
+    };
+  }
+
+  private static <K> void add(Map<K, double[]> m, K bucket, double kwh, double cost) {
+    double[] acc = m.computeIfAbsent(bucket, k -> new double[2]);
+    acc[0] += kwh;
+    acc[1] += cost;
+  }
+
+  private List<DashboardSummary.Point> points(Map<String, double[]> m) {
+    return m.entrySet().stream()
+        .map(e -> new DashboardSummary.Point(e.getKey(), round3(e.getValue()[0]), round2(e.getValue()[1])))
+        .collect(Collectors.toList());
+  }
+
+  private static Instant ceilHour(Instant t) {
+    Instant h = t.truncatedTo(ChronoUnit.HOURS);
+    return h.equals(t) ? h : h.plus(Duration.ofHours(1));
+  }
+
+  private static Instant min(Instant a, Instant b) { return a.isBefore(b) ? a : b; }
+  private static Instant max(Instant a, Instant b) { return a.isAfter(b) ? a : b; }
+
+  private static final class DeviceTotal {
+    final String name;
+    double kwh;
+    DeviceTotal(String name) { this.name = name; }
   }
 
   private double round2(double v){ return Math.round(v * 100.0)/100.0; }
@@ -0,0 +1,150 @@
+package com.luminav.service;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.DeviceDeletionJob;
+import com.luminav.repository.DeviceDeletionJobRepository;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.HourlyRollupRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.RecommendationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Borrado asíncrono de dispositivos.
+ * El DELETE del API solo marca el dispositivo (tombstone) y encola un job;
+ * las lecturas se purgan en lotes pequeños desde el scheduler.
+ *
+ * app.devices.purge-batch-size=2000   filas por DELETE
+ * app.devices.purge-max-batches=5     lotes por ejecución (límite de ritmo)
+ * app.devices.purge-delay-ms=2000
+ * app.devices.purge-max-attempts=8     fallos antes de dejar el job en FAILED
+ * app.devices.purge-retry-base-ms=30000 espera tras el primer fallo; se duplica en cada uno (tope 1 h)
+ */
+@Service
+public class DeviceDeletionService {
+
+  private static final List<String> ACTIVE = List.of("PENDING", "RUNNING");
+  private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+  private final DeviceRepository devices;
+  private final ReadingRepository readings;
+  private final DeviceDeletionJobRepository jobs;
+  private final HourlyRollupRepository rollups;
+  private final RecommendationRepository recos;
+  private final ReadingArchive archive;
+  private final LiveDeviceRegistry live;
+
+  @Value("${app.devices.purge-batch-size:2000}")
+  private int batchSize;
+
+  @Value("${app.devices.purge-max-batches:5}")
+  private int maxBatchesPerRun;
+
+  @Value("${app.devices.purge-max-attempts:8}")
+  private int maxAttempts;
+
+  @Value("${app.devices.purge-retry-base-ms:30000}")
+  private long retryBaseMs;
+
+  public DeviceDeletionService(DeviceRepository devices, ReadingRepository readings, DeviceDeletionJobRepository jobs,
+                               HourlyRollupRepository rollups, RecommendationRepository recos, ReadingArchive archive,
+                               LiveDeviceRegistry live) {
+    this.devices = devices;
+    this.readings = readings;
+    this.jobs = jobs;
+    this.rollups = rollups;
+    this.recos = recos;
+    this.archive = archive;
+    this.live = live;
+  }
+
+  /** Marca el dispositivo como borrado y encola el purgado de sus lecturas */
+  @Transactional
+  public DeviceDeletionJob requestDeletion(Device d) {
+    d.setDeletedAt(Instant.now());
+    devices.save(d);
+    rollups.deleteByDeviceId(d.getId()); // sus agregados dejan de contar de inmediato
+    live.remove(d.getOwner().getId(), d.getId());
+
+    DeviceDeletionJob job = new DeviceDeletionJob();
+    job.setDeviceId(d.getId());
+    job.setOwnerId(d.getOwner().getId());
+    job.setStatus("PENDING");
+    job.setCreatedAt(Instant.now());
+    return jobs.save(job);
+  }
+
+  public Optional<DeviceDeletionJob> findJob(Long jobId, Long ownerId) {
+    return jobs.findByIdAndOwnerId(jobId, ownerId);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.devices.purge-delay-ms:2000}",
+      initialDelayString = "${app.devices.purge-initial-delay-ms:10000}"
+  )
+  public void purgePending() {
+    int budget = Math.max(1, maxBatchesPerRun);
+    for (DeviceDeletionJob job : jobs.findDue(ACTIVE, Instant.now(), PageRequest.of(0, 10))) {
+      if (budget <= 0) return;
+      budget -= purge(job, budget);
+    }
+  }
+
+  // Procesa hasta 'budget' lotes del job; retorna cuántos lotes consumió
+  private int purge(DeviceDeletionJob job, int budget) {
+    int used = 0;
+    try {
+      job.setStatus("RUNNING");
+      while (used < budget) {
+        int deleted = readings.deleteBatchByDeviceId(job.getDeviceId(), Math.max(1, batchSize));
+        used++;
+        job.setDeletedReadings(job.getDeletedReadings() + deleted);
+        if (deleted == 0) {
+          // Sin lecturas: ya se puede borrar la fila del dispositivo
+          recos.detachDevice(job.getDeviceId());
+          archive.deleteDevice(job.getDeviceId()); // y su archivo frío
+          devices.deleteById(job.getDeviceId());
+          job.setStatus("DONE");
+          job.setError(null);
+          job.setNextAttemptAt(null);
+          job.setFinishedAt(Instant.now());
+          break;
+        }
+      }
+    } catch (Exception ex) {
+      // el purgado es idempotente: se retoma donde quedó tras una espera creciente
+      job.setAttempts(job.getAttempts() + 1);
+      job.setError(truncate(ex.getMessage()));
+      if (job.getAttempts() >= Math.max(1, maxAttempts)) {
+        job.setStatus("FAILED");
+        job.setNextAttemptAt(null);
+        job.setFinishedAt(Instant.now());
+      } else {
+        job.setStatus("PENDING");
+        job.setNextAttemptAt(Instant.now().plus(retryDelay(job.getAttempts())));
+      }
+    }
+    jobs.save(job);
+    return Math.max(1, used);
+  }
+
+  // retryBaseMs * 2^(attempts-1), con tope
+  private Duration retryDelay(int attempts) {
+    long ms = Math.max(0, retryBaseMs) << Math.min(attempts - 1, 20);
+    return ms < 0 || ms > MAX_RETRY_DELAY.toMillis() ? MAX_RETRY_DELAY : Duration.ofMillis(ms);
+  }
+
+  private String truncate(String s) {
+    if (s == null) return null;
+    return s.length() <= 500 ? s : s.substring(0, 500);
+  }
+}
@@ -0,0 +1,54 @@
+package com.luminav.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Horas (owner, hora UTC) cuyo agregado quedó desactualizado por una ingesta.
+ * Muchas lecturas a la misma hora se coalescen en una sola entrada; las lecturas tardías
+ * (de horas ya cerradas) marcan solo esas horas, sin recalcular todo el histórico.
+ */
+@Component
+public class DirtyHourTracker {
+
+  public record Bucket(long ownerId, long hourEpochSecond) {
+    public Instant start() { return Instant.ofEpochSecond(hourEpochSecond); }
+  }
+
+  private final Set<Bucket> dirty = ConcurrentHashMap.newKeySet();
+  private final AtomicLong lateReadings = new AtomicLong();
+
+  public static long hourOf(Instant t) {
+    return t.truncatedTo(ChronoUnit.HOURS).getEpochSecond();
+  }
+
+  public void mark(long ownerId, Instant recordedAt) {
+    long hour = hourOf(recordedAt);
+    if (hour < hourOf(Instant.now())) lateReadings.incrementAndGet();
+    dirty.add(new Bucket(ownerId, hour));
+  }
+
+  public void markAll(Collection<Bucket> buckets) {
+    dirty.addAll(buckets);
+  }
+
+  /** Saca hasta 'max' horas sucias (las quita del set; si el recalculo falla hay que re-marcarlas) */
+  public List<Bucket> drain(int max) {
+    List<Bucket> out = new ArrayList<>(Math.min(max, dirty.size()));
+    Iterator<Bucket> it = dirty.iterator();
+    while (it.hasNext() && out.size() < max) {
+      Bucket b = it.next();
+      if (dirty.remove(b)) out.add(b);
+    }
+    return out;
+  }
+
+  public int pending() { return dirty.size(); }
+
+  public long lateReadings() { return lateReadings.get(); }
+}
@@ -0,0 +1,51 @@
+package com.luminav.service;
+
+/**
+ * Largest-Triangle-Three-Buckets: reduce una serie a n puntos conservando picos y valles
+ * (primer y último punto siempre se conservan). O(tamaño de la serie), sin copias.
+ */
+public final class Downsampling {
+
+  private Downsampling() {}
+
+  /** @return índices (ascendentes) de los puntos elegidos; todos si la serie ya cabe */
+  public static int[] lttb(double[] x, double[] y, int threshold) {
+    int size = x.length;
+    if (threshold >= size || threshold < 3) {
+      int[] all = new int[size];
+      for (int i = 0; i < size; i++) all[i] = i;
+      return all;
+    }
+
+    int[] out = new int[threshold];
+    int n = 0;
+    out[n++] = 0;
+    double every = (double) (size - 2) / (threshold - 2);
+    int a = 0;
+
+    for (int i = 0; i < threshold - 2; i++) {
+      // promedio del bucket siguiente: tercer vértice del triángulo
+      int avgStart = (int) Math.floor((i + 1) * every) + 1;
+      int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+      double avgX = 0, avgY = 0;
+      for (int j = avgStart; j < avgEnd; j++) { avgX += x[j]; avgY += y[j]; }
+      int avgLen = Math.max(1, avgEnd - avgStart);
+      avgX /= avgLen;
+      avgY /= avgLen;
+
+      // en el bucket actual, el punto que forma el triángulo de mayor área con el anterior elegido
+      int from = (int) Math.floor(i * every) + 1;
+      int to = (int) Math.floor((i + 1) * every) + 1;
+      double maxArea = -1;
+      int chosen = from;
+      for (int j = from; j < to; j++) {
+        double area = Math.abs((x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+        if (area > maxArea) { maxArea = area; chosen = j; }
+      }
+      out[n++] = chosen;
+      a = chosen;
+    }
+    out[n] = size - 1;
+    return out;
+  }
+}
@@ -1,45 +1,42 @@
 package com.luminav.service;
 
-import com.luminav.entity.Reading;
-import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.HourlyRollupRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class ForecastService {
-  private final ReadingRepository readings;
-  private static final ZoneId ZONE = ZoneId.systemDefault();
+  private final HourlyRollupRepository rollups;
+  private static final ZoneId ZONE = TariffPricing.ZONE; // horas locales como las etiqueta y tarifa el rollup
 
-  public ForecastService(ReadingRepository readings) { this.readings = readings; }
+  public ForecastService(HourlyRollupRepository rollups) { this.rollups = rollups; }
 
   // Retorna kWh promedio esperado por HORA del día (0..23), usando últimos N días
+  // Lee los rollups horarios (a lo sumo 24*N filas), no las lecturas crudas
+  @Transactional(readOnly = true)
   public Map<Integer, Double> hourlyBaseline(Long ownerId, int days) {
     Instant to = Instant.now();
     Instant from = to.minus(Duration.ofDays(days));
-    List<Reading> list = readings.findByDeviceOwnerIdAndRecordedAtBetween(ownerId, from, to);
+    List<Object[]> buckets = rollups.sumKwhByBucket(ownerId, from, to);
 
     // agrupar por hora del día (0..23)
-    Map<Integer, List<Reading>> byHour = list.stream().collect(Collectors.groupingBy(r ->
-        LocalDateTime.ofInstant(r.getRecordedAt(), ZONE).getHour()
-    ));
+    double[] sumByHour = new double[24];
+    for (Object[] row : buckets) {
+      int h = LocalDateTime.ofInstant((Instant) row[0], ZONE).getHour();
+      sumByHour[h] += ((Number) row[1]).doubleValue();
+    }
 
     Map<Integer, Double> kwhPerHour = new HashMap<>();
     for (int h=0; h<24; h++) {
-      List<Reading> bucket = byHour.getOrDefault(h, Collections.emptyList());
-      double sumKwh = bucket.stream().mapToDouble(this::kwh).sum();
       // promedio por hora del día a lo largo de 'days' días
-      double avg = days > 0 ? sumKwh / days : 0.0;
+      double avg = days > 0 ? sumByHour[h] / days : 0.0;
       kwhPerHour.put(h, round3(avg));
     }
     return kwhPerHour;
   }
 
-  private double kwh(Reading r) {
-    double hours = (r.getMinutes() == null ? 60 : r.getMinutes()) / 60.0;
-    return (r.getWatt() * hours) / 1000.0;
-  }
   private double round3(double v){ return Math.round(v * 1000.0)/1000.0; }
 }
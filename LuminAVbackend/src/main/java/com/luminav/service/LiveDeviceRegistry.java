@@ -0,0 +1,190 @@
+package com.luminav.service;
+
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.ReadingRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estado "ahora" de cada dispositivo en memoria: última potencia, última lectura, encendido desde, kWh de hoy.
+ * Un slot por dispositivo con un snapshot inmutable (AtomicReference + CAS): la ingesta no toma locks
+ * y leer el estado de un owner no consulta la base. Se reconstruye al arrancar desde las lecturas de hoy
+ * (hora local) de cada dispositivo.
+ *
+ * app.live.offline-after-minutes=10   sin lecturas en ese tiempo -> OFFLINE
+ * app.live.on-watt-threshold=5        potencia mínima para considerar el equipo encendido
+ */
+@Component
+public class LiveDeviceRegistry {
+
+  public enum Status { ONLINE, OFFLINE }
+
+  /** Vista JSON de /api/devices/live */
+  public record LiveDevice(long deviceId, Integer watt, Instant lastSeen, Instant onSince, double todayKwh, Status status) {}
+
+  /** Estado inmutable de un slot; watt/lastSeen null = aún sin lecturas */
+  public record Snapshot(long deviceId, Integer watt, Instant lastSeen, Instant onSince, double todayKwh, LocalDate day) {
+
+    static Snapshot empty(long deviceId) {
+      return new Snapshot(deviceId, null, null, null, 0.0, null);
+    }
+
+    Snapshot withoutEnergy() {
+      return new Snapshot(deviceId, watt, lastSeen, onSince, 0.0, null);
+    }
+
+    Snapshot apply(Instant at, int w, int minutes, int onThreshold, long offlineAfterMinutes) {
+      LocalDate readingDay = LocalDate.ofInstant(at, TariffPricing.ZONE);
+      double kwh = (double) w * minutes / 60_000.0;
+      double today = day == null || readingDay.isAfter(day) ? kwh
+          : readingDay.equals(day) ? todayKwh + kwh : todayKwh; // lectura de un día anterior: no cuenta para hoy
+      LocalDate newDay = day == null || readingDay.isAfter(day) ? readingDay : day;
+
+      // fuera de orden: solo suma energía, no cambia la potencia actual
+      if (lastSeen != null && !at.isAfter(lastSeen)) {
+        return new Snapshot(deviceId, watt, lastSeen, onSince, today, newDay);
+      }
+      boolean on = w > onThreshold;
+      // un hueco que lo dejó OFFLINE corta el "encendido desde" aunque antes y después esté encendido
+      boolean gap = lastSeen != null && Duration.between(lastSeen, at).toMinutes() >= offlineAfterMinutes;
+      boolean wasOn = onSince != null && watt != null && watt > onThreshold && !gap;
+      Instant since = !on ? null : wasOn ? onSince : at;
+      return new Snapshot(deviceId, w, at, since, today, newDay);
+    }
+  }
+
+  private static final int REBUILD_CHUNK = 1000;
+
+  private final Map<Long, Map<Long, AtomicReference<Snapshot>>> byOwner = new ConcurrentHashMap<>();
+  private final DeviceRepository devices;
+  private final ReadingRepository readings;
+
+  // Id máximo que cubre la suma de arranque: en vivo solo suman energía las lecturas por encima (las demás ya
+  // están en la suma). Hasta que rebuild() lo fija ninguna suma, para no contar dos veces lo anterior al arranque.
+  private volatile long energyWatermark = Long.MAX_VALUE;
+
+  @Value("${app.live.offline-after-minutes:10}")
+  private long offlineAfterMinutes;
+
+  @Value("${app.live.on-watt-threshold:5}")
+  private int onWattThreshold;
+
+  public LiveDeviceRegistry(DeviceRepository devices, ReadingRepository readings) {
+    this.devices = devices;
+    this.readings = readings;
+  }
+
+  /** Lectura confirmada (ReadingIngestService, tras el commit) */
+  public void record(long ownerId, long deviceId, long readingId, Instant at, int watt, int minutes) {
+    // minutes = 0: actualiza potencia y lastSeen sin sumar energía que ya cuenta la suma de arranque
+    int counted = readingId > energyWatermark ? minutes : 0;
+    slot(ownerId, deviceId).updateAndGet(s -> s.apply(at, watt, counted, onWattThreshold, offlineAfterMinutes));
+  }
+
+  /** Dispositivo nuevo: aparece OFFLINE hasta su primera lectura */
+  public void register(long ownerId, long deviceId) {
+    slot(ownerId, deviceId);
+  }
+
+  /** Dispositivo con tombstone: deja de verse de inmediato */
+  public void remove(long ownerId, long deviceId) {
+    Map<Long, AtomicReference<Snapshot>> slots = byOwner.get(ownerId);
+    if (slots != null) slots.remove(deviceId);
+  }
+
+  public List<Snapshot> snapshots(long ownerId) {
+    Map<Long, AtomicReference<Snapshot>> slots = byOwner.get(ownerId);
+    if (slots == null) return List.of();
+    List<Snapshot> out = new ArrayList<>(slots.size());
+    for (AtomicReference<Snapshot> ref : slots.values()) out.add(ref.get());
+    out.sort(Comparator.comparingLong(Snapshot::deviceId));
+    return out;
+  }
+
+  public List<LiveDevice> live(long ownerId) {
+    Instant now = Instant.now();
+    LocalDate today = LocalDate.ofInstant(now, TariffPricing.ZONE);
+    List<LiveDevice> out = new ArrayList<>();
+    for (Snapshot s : snapshots(ownerId)) {
+      boolean online = isOnline(s, now);
+      out.add(new LiveDevice(s.deviceId(), s.watt(), s.lastSeen(), online ? s.onSince() : null,
+          today.equals(s.day()) ? Math.round(s.todayKwh() * 1000.0) / 1000.0 : 0.0,
+          online ? Status.ONLINE : Status.OFFLINE));
+    }
+    return out;
+  }
+
+  public boolean isOnline(Snapshot s, Instant now) {
+    return s.lastSeen() != null && Duration.between(s.lastSeen(), now).toMinutes() < offlineAfterMinutes;
+  }
+
+  /**
+   * Dispositivos activos y, por cada tanda de REBUILD_CHUNK, dos consultas acotadas por el índice
+   * (device_id, recorded_at): kWh desde la medianoche local, sumados de reading (los rollups de la hora en
+   * curso aún no existen) y la última lectura desde min(medianoche, ahora - offline-after). Un dispositivo
+   * sin lecturas en esa ventana ya está OFFLINE: su lastSeen queda vacío hasta la próxima lectura.
+   * "Encendido desde" arranca en la última lectura: la historia previa al reinicio no se reconstruye.
+   * La suma solo cubre lecturas hasta un id de corte tomado antes de consultar; las que llegan en vivo mientras
+   * tanto suman en el slot solo si su id es mayor, así una lectura no cuenta en la suma y en el slot a la vez.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    energyWatermark = Long.MAX_VALUE;
+    byOwner.values().forEach(slots -> slots.values().forEach(ref -> ref.updateAndGet(Snapshot::withoutEnergy)));
+    for (Object[] row : devices.allActiveIds()) register((Long) row[0], (Long) row[1]);
+    long watermark = readings.maxId();
+    energyWatermark = watermark;
+
+    Map<Long, Long> ownerOf = new HashMap<>();
+    byOwner.forEach((owner, slots) -> slots.keySet().forEach(d -> ownerOf.put(d, owner)));
+
+    Instant now = Instant.now();
+    LocalDate today = LocalDate.ofInstant(now, TariffPricing.ZONE);
+    Instant midnight = today.atStartOfDay(TariffPricing.ZONE).toInstant();
+    Instant offlineEdge = now.minus(Duration.ofMinutes(offlineAfterMinutes));
+    Instant window = offlineEdge.isBefore(midnight) ? offlineEdge : midnight;
+
+    List<Long> ids = new ArrayList<>(ownerOf.keySet());
+    for (int i = 0; i < ids.size(); i += REBUILD_CHUNK) {
+      List<Long> chunk = ids.subList(i, Math.min(ids.size(), i + REBUILD_CHUNK));
+      Map<Long, Double> todayKwh = new HashMap<>();
+      for (Object[] row : readings.wattMinutesByDeviceSince(chunk, midnight, watermark)) {
+        todayKwh.put((Long) row[0], ((Number) row[1]).doubleValue() / 60_000.0);
+      }
+      for (Object[] row : readings.latestPerDeviceSince(chunk, window)) {
+        seed(ownerOf.get((Long) row[0]), (Long) row[0], (Instant) row[1], (Integer) row[2],
+            todayKwh.getOrDefault((Long) row[0], 0.0), today);
+      }
+    }
+  }
+
+  private void seed(long ownerId, long deviceId, Instant at, int watt, double todayKwh, LocalDate today) {
+    slot(ownerId, deviceId).updateAndGet(cur -> {
+      if (cur.day() != null && cur.day().isAfter(today)) return cur; // pasó la medianoche durante el rebuild
+      // el slot solo tiene la energía en vivo por encima del corte: se suma a la base sin repetir filas
+      double total = todayKwh + (today.equals(cur.day()) ? cur.todayKwh() : 0.0);
+      if (cur.lastSeen() != null && !cur.lastSeen().isBefore(at)) {
+        return new Snapshot(deviceId, cur.watt(), cur.lastSeen(), cur.onSince(), total, today);
+      }
+      return new Snapshot(deviceId, watt, at, watt > onWattThreshold ? at : null, total, today);
+    });
+  }
+
+  private AtomicReference<Snapshot> slot(long ownerId, long deviceId) {
+    return byOwner.computeIfAbsent(ownerId, k -> new ConcurrentHashMap<>())
+        .computeIfAbsent(deviceId, k -> new AtomicReference<>(Snapshot.empty(deviceId)));
+  }
+}
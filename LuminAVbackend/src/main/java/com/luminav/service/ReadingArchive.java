@@ -0,0 +1,198 @@
+package com.luminav.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Capa fría de lecturas: un archivo por (dispositivo, mes UTC) en app.archive.dir/&lt;deviceId&gt;/&lt;yyyy-MM&gt;.lva
+ * (formato en ReadingArchiveCodec). Solo se archivan meses anteriores a cutoff(); la lectura mapea el archivo
+ * en memoria (FileChannel.map) y decodifica sin copiarlo al heap.
+ *
+ * app.archive.dir=./data/archive
+ * app.archive.keep-months=3   meses completos que siguen en la tabla reading además del actual
+ */
+@Component
+public class ReadingArchive {
+
+  private static final String SUFFIX = ".lva";
+
+  private final Path root;
+  private final int keepMonths;
+
+  public ReadingArchive(@Value("${app.archive.dir:./data/archive}") String dir,
+                        @Value("${app.archive.keep-months:3}") int keepMonths) {
+    this.root = Paths.get(dir);
+    this.keepMonths = Math.max(1, keepMonths);
+  }
+
+  /** Inicio (UTC) del mes más antiguo que sigue caliente: todo lo archivado es anterior */
+  public Instant cutoff() {
+    return YearMonth.now(ZoneOffset.UTC).minusMonths(keepMonths).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  public static YearMonth monthOf(Instant t) {
+    return YearMonth.from(t.atOffset(ZoneOffset.UTC));
+  }
+
+  public static Instant monthStart(YearMonth m) {
+    return m.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+
+  public boolean hasMonth(long deviceId, YearMonth m) {
+    return Files.isRegularFile(file(deviceId, m));
+  }
+
+  /** Mes archivado más antiguo del dispositivo (null si no tiene archivo) */
+  public YearMonth oldestMonth(long deviceId) {
+    Path dir = root.resolve(Long.toString(deviceId));
+    if (!Files.isDirectory(dir)) return null;
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.map(p -> p.getFileName().toString())
+          .filter(n -> n.endsWith(SUFFIX))
+          .map(n -> YearMonth.parse(n.substring(0, n.length() - SUFFIX.length())))
+          .min(Comparator.naturalOrder())
+          .orElse(null);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Agrega filas (ordenadas, sin repetidos) al mes; si el archivo ya existe se mezclan y ante el mismo
+   * timestamp gana la fila nueva, que viene de la tabla caliente (misma regla que las lecturas que mezclan
+   * las dos capas). Escritura a temporal + fsync + rename atómico: un lector ve el archivo anterior o el
+   * nuevo, nunca uno a medias, y repetir la operación no duplica filas.
+   */
+  public void append(long deviceId, YearMonth m, long[] millis, int[] watts, int[] minutes, int count) {
+    Path target = file(deviceId, m);
+    try {
+      Files.createDirectories(target.getParent());
+      byte[] block;
+      if (Files.isRegularFile(target)) {
+        ByteBuffer existing = map(target);
+        Merged merged = new Merged(ReadingArchiveCodec.count(existing) + count);
+        int[] next = {0};
+        ReadingArchiveCodec.decode(existing, Long.MIN_VALUE, Long.MAX_VALUE, (t, w, min) -> {
+          while (next[0] < count && millis[next[0]] < t) {
+            merged.add(millis[next[0]], watts[next[0]], minutes[next[0]]);
+            next[0]++;
+          }
+          if (next[0] < count && millis[next[0]] == t) { // repetido: se queda la fila caliente
+            merged.add(millis[next[0]], watts[next[0]], minutes[next[0]]);
+            next[0]++;
+            return;
+          }
+          merged.add(t, w, min);
+        });
+        for (int i = next[0]; i < count; i++) merged.add(millis[i], watts[i], minutes[i]);
+        block = ReadingArchiveCodec.encode(deviceId, merged.millis, merged.watts, merged.minutes, merged.size);
+      } else {
+        block = ReadingArchiveCodec.encode(deviceId, millis, watts, minutes, count);
+      }
+
+      Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+      try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE)) {
+        ByteBuffer buf = ByteBuffer.wrap(block);
+        while (buf.hasRemaining()) ch.write(buf);
+        ch.force(true); // en disco antes de borrar las filas calientes
+      }
+      Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /** Filas archivadas del dispositivo con recordedAt en [from, to) */
+  public void scan(long deviceId, Instant from, Instant to, ReadingArchiveCodec.RowSink sink) {
+    if (!from.isBefore(to)) return;
+    long fromMs = from.toEpochMilli();
+    long toMs = to.toEpochMilli();
+    YearMonth last = monthOf(to.minusMillis(1));
+    for (YearMonth m = monthOf(from); !m.isAfter(last); m = m.plusMonths(1)) {
+      Path f = file(deviceId, m);
+      if (!Files.isRegularFile(f)) continue;
+      try {
+        ReadingArchiveCodec.decode(map(f), fromMs, toMs, sink);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+  /** Suma watt*minutes y número de filas en [from, to) (recalculo de rollups de meses archivados) */
+  public long[] sumWattMinutes(long deviceId, Instant from, Instant to) {
+    return sumWattMinutes(deviceId, from, to, t -> false);
+  }
+
+  /** Igual, omitiendo las filas cuyo timestamp (epoch ms) cumple 'skip' */
+  public long[] sumWattMinutes(long deviceId, Instant from, Instant to, LongPredicate skip) {
+    long[] acc = new long[2];
+    scan(deviceId, from, to, (t, w, min) -> {
+      if (skip.test(t)) return;
+      acc[0] += (long) w * min;
+      acc[1]++;
+    });
+    return acc;
+  }
+
+  /** Borra todo el archivo del dispositivo (purgado tras el borrado del dispositivo) */
+  public void deleteDevice(long deviceId) {
+    Path dir = root.resolve(Long.toString(deviceId));
+    if (!Files.isDirectory(dir)) return;
+    try (Stream<Path> files = Files.walk(dir)) {
+      for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private Path file(long deviceId, YearMonth m) {
+    return root.resolve(Long.toString(deviceId)).resolve(m + SUFFIX);
+  }
+
+  // El mapeo sigue válido tras cerrar el canal; se libera con el GC
+  private static ByteBuffer map(Path f) throws IOException {
+    try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+      return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+    }
+  }
+
+  private static final class Merged {
+    long[] millis;
+    int[] watts;
+    int[] minutes;
+    int size;
+
+    Merged(int capacity) {
+      millis = new long[Math.max(1, capacity)];
+      watts = new int[millis.length];
+      minutes = new int[millis.length];
+    }
+
+    void add(long t, int w, int min) {
+      if (size == millis.length) {
+        millis = Arrays.copyOf(millis, size * 2);
+        watts = Arrays.copyOf(watts, size * 2);
+        minutes = Arrays.copyOf(minutes, size * 2);
+      }
+      millis[size] = t;
+      watts[size] = w;
+      minutes[size] = min;
+      size++;
+    }
+  }
+}
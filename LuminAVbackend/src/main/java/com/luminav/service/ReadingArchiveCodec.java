@@ -0,0 +1,125 @@
+package com.luminav.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Formato de un bloque de archivo (un dispositivo, un mes), columnar y estilo Gorilla alineado a bytes:
+ *
+ *   int   magic "LVA1"
+ *   long  deviceId
+ *   int   count
+ *   long  firstMillis
+ *   int   offset columna watts, int offset columna minutes
+ *   [timestamps] varint zigzag del delta-of-delta (lecturas periódicas -> 1 byte por fila)
+ *   [watts]      primer valor varint zigzag, luego varint de (w XOR anterior)
+ *   [minutes]    varint zigzag del delta con el anterior
+ *
+ * Las filas van ordenadas por recordedAt y sin timestamps repetidos.
+ */
+public final class ReadingArchiveCodec {
+
+  public static final int MAGIC = 0x4C564131; // "LVA1"
+  private static final int HEADER_BYTES = 4 + 8 + 4 + 8 + 4 + 4;
+
+  /** Recibe filas decodificadas sin crear objetos por fila */
+  @FunctionalInterface
+  public interface RowSink {
+    void accept(long recordedAtMillis, int watt, int minutes);
+  }
+
+  private ReadingArchiveCodec() {}
+
+  public static byte[] encode(long deviceId, long[] millis, int[] watts, int[] minutes, int count) {
+    if (count <= 0) throw new IllegalArgumentException("bloque vacío");
+    ByteArrayOutputStream ts = new ByteArrayOutputStream(count + 16);
+    ByteArrayOutputStream ws = new ByteArrayOutputStream(count * 2 + 16);
+    ByteArrayOutputStream ms = new ByteArrayOutputStream(count + 16);
+
+    putVarLong(ws, zigzag(watts[0]));
+    putVarLong(ms, zigzag(minutes[0]));
+    long prevDelta = 0;
+    for (int i = 1; i < count; i++) {
+      long delta = millis[i] - millis[i - 1];
+      if (delta <= 0) throw new IllegalArgumentException("timestamps no ordenados en la fila " + i);
+      putVarLong(ts, zigzag(delta - prevDelta));
+      prevDelta = delta;
+      putVarLong(ws, Integer.toUnsignedLong(watts[i] ^ watts[i - 1]));
+      putVarLong(ms, zigzag((long) minutes[i] - minutes[i - 1]));
+    }
+
+    int wattsOffset = HEADER_BYTES + ts.size();
+    int minutesOffset = wattsOffset + ws.size();
+    ByteBuffer out = ByteBuffer.allocate(minutesOffset + ms.size()).order(ByteOrder.BIG_ENDIAN);
+    out.putInt(MAGIC).putLong(deviceId).putInt(count).putLong(millis[0]).putInt(wattsOffset).putInt(minutesOffset);
+    out.put(ts.toByteArray()).put(ws.toByteArray()).put(ms.toByteArray());
+    return out.array();
+  }
+
+  public static long deviceId(ByteBuffer block) {
+    checkMagic(block);
+    return block.getLong(4);
+  }
+
+  public static int count(ByteBuffer block) {
+    checkMagic(block);
+    return block.getInt(12);
+  }
+
+  /**
+   * Decodifica las filas con recordedAt en [fromMillis, toMillis).
+   * Las columnas se recorren a la par con tres cursores; se corta al pasar toMillis.
+   */
+  public static void decode(ByteBuffer block, long fromMillis, long toMillis, RowSink sink) {
+    checkMagic(block);
+    int count = block.getInt(12);
+    long t = block.getLong(16);
+    int[] tsPos = {HEADER_BYTES};
+    int[] wPos = {block.getInt(24)};
+    int[] mPos = {block.getInt(28)};
+
+    int watt = (int) unzigzag(getVarLong(block, wPos));
+    int minutes = (int) unzigzag(getVarLong(block, mPos));
+    long delta = 0;
+    for (int i = 0; ; i++) {
+      if (t >= toMillis) return;
+      if (t >= fromMillis) sink.accept(t, watt, minutes);
+      if (i + 1 >= count) return;
+      delta += unzigzag(getVarLong(block, tsPos));
+      t += delta;
+      watt ^= (int) getVarLong(block, wPos);
+      minutes += (int) unzigzag(getVarLong(block, mPos));
+    }
+  }
+
+  private static void checkMagic(ByteBuffer block) {
+    if (block.limit() < HEADER_BYTES || block.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("bloque de archivo inválido");
+    }
+  }
+
+  private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+  private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+  private static void putVarLong(ByteArrayOutputStream out, long v) {
+    while ((v & ~0x7FL) != 0) {
+      out.write((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.write((int) v);
+  }
+
+  // Lectura absoluta (no mueve la posición del buffer: varios lectores pueden compartir el mapeo)
+  private static long getVarLong(ByteBuffer in, int[] pos) {
+    long v = 0;
+    int shift = 0;
+    while (true) {
+      if (shift > 63) throw new IllegalArgumentException("varint inválido");
+      byte b = in.get(pos[0]++);
+      v |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return v;
+      shift += 7;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.luminav.service;
+
+/**
+ * Decoder del formato binario compacto para gateways de alta frecuencia.
+ *
+ * Content-Type: application/x-luminav-readings (opcional Content-Encoding: gzip | deflate)
+ *
+ * stream := frame*
+ * frame  := varint bodyLength, body
+ * body   := varint deviceId, varint count, varint firstEpochSecond, varint watt, varint minutes,
+ *           (count-1) x [ zigzag-varint deltaSeconds, varint watt, varint minutes ]
+ *
+ * deltaSeconds es relativo a la lectura anterior (permite desorden); minutes = 0 -> 60.
+ * Todos los varint son sin signo y caben en 64 bits; watt y minutes además en un int.
+ * Escribe directo en un {@link ReadingIngestService.Batch}, sin objetos por lectura.
+ */
+public final class ReadingFrameDecoder {
+
+  public static final String CONTENT_TYPE = "application/x-luminav-readings";
+
+  private final byte[] buf;
+  private final int limit;
+  private int pos;
+
+  private ReadingFrameDecoder(byte[] buf, int limit) {
+    this.buf = buf;
+    this.limit = limit;
+  }
+
+  /**
+   * @param maxReadings tope de lecturas aceptadas en la petición completa
+   * @throws IllegalArgumentException si el payload está truncado o mal formado
+   */
+  public static ReadingIngestService.Batch decode(byte[] payload, int maxReadings) {
+    ReadingFrameDecoder d = new ReadingFrameDecoder(payload, payload.length);
+    // estimado inicial: ~4 bytes por lectura
+    ReadingIngestService.Batch batch = new ReadingIngestService.Batch(Math.min(maxReadings, payload.length / 4 + 1));
+    while (d.pos < d.limit) {
+      long bodyLength = d.readVarLong(d.limit);
+      if (bodyLength <= 0 || bodyLength > d.limit - d.pos) throw new IllegalArgumentException("frame length inválido");
+      int end = d.pos + (int) bodyLength;
+      d.readFrame(batch, end, maxReadings);
+      if (d.pos != end) throw new IllegalArgumentException("frame con bytes sobrantes");
+    }
+    return batch;
+  }
+
+  private void readFrame(ReadingIngestService.Batch batch, int end, int maxReadings) {
+    long deviceId = readVarLong(end);
+    if (deviceId <= 0) throw new IllegalArgumentException("deviceId inválido");
+    long count = readVarLong(end);
+    if (count <= 0 || batch.size() + count > maxReadings) throw new IllegalArgumentException("cantidad de lecturas inválida");
+
+    long ts = readVarLong(end);
+    batch.add(deviceId, millis(ts), readVarInt(end), readMinutes(end));
+    for (long i = 1; i < count; i++) {
+      long raw = readVarLong(end);
+      try {
+        ts = Math.addExact(ts, (raw >>> 1) ^ -(raw & 1)); // zigzag
+      } catch (ArithmeticException ex) {
+        throw new IllegalArgumentException("timestamp fuera de rango");
+      }
+      batch.add(deviceId, millis(ts), readVarInt(end), readMinutes(end));
+    }
+  }
+
+  private static long millis(long epochSecond) {
+    if (epochSecond < 0 || epochSecond > Long.MAX_VALUE / 1000L) throw new IllegalArgumentException("timestamp fuera de rango");
+    return epochSecond * 1000L;
+  }
+
+  // 0 en el formato binario = por defecto (60); el JSON no tiene esa convención
+  private int readMinutes(int end) {
+    int m = readVarInt(end);
+    return m == 0 ? 60 : m;
+  }
+
+  private int readVarInt(int end) {
+    long v = readVarLong(end);
+    if (v < 0 || v > Integer.MAX_VALUE) throw new IllegalArgumentException("valor fuera de rango");
+    return (int) v;
+  }
+
+  // Sin signo, como mucho 64 bits: el décimo byte solo puede aportar el bit 63
+  private long readVarLong(int end) {
+    long result = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (pos >= end) throw new IllegalArgumentException("frame truncado");
+      byte b = buf[pos++];
+      if (shift == 63 && (b & 0xFE) != 0) throw new IllegalArgumentException("varint demasiado largo");
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) return result;
+    }
+    throw new IllegalArgumentException("varint demasiado largo");
+  }
+}
@@ -0,0 +1,169 @@
+package com.luminav.service;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.Reading;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.ReadingRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Camino único de persistencia de lecturas (JSON individual, JSON bulk y frames binarios).
+ */
+@Service
+public class ReadingIngestService {
+
+  private final ReadingRepository readings;
+  private final DeviceRepository devices;
+  private final DirtyHourTracker dirtyHours;
+  private final RecentKeyFilter recentKeys;
+  private final LiveDeviceRegistry live;
+  private final TransactionTemplate tx;
+
+  public ReadingIngestService(ReadingRepository readings, DeviceRepository devices, DirtyHourTracker dirtyHours,
+                              RecentKeyFilter recentKeys, LiveDeviceRegistry live, PlatformTransactionManager txManager) {
+    this.readings = readings;
+    this.devices = devices;
+    this.dirtyHours = dirtyHours;
+    this.recentKeys = recentKeys;
+    this.live = live;
+    this.tx = new TransactionTemplate(txManager);
+  }
+
+  /**
+   * Lote en columnas de primitivos: el decoder binario lo llena sin crear un objeto por campo.
+   * minutes ya viene resuelto (> 0): cada entrada aplica su propio valor por defecto y valida.
+   */
+  public static final class Batch {
+    private long[] deviceIds;
+    private long[] recordedAtMillis;
+    private int[] watts;
+    private int[] minutes;
+    private int size;
+
+    public Batch(int capacity) {
+      int c = Math.max(1, capacity);
+      deviceIds = new long[c]; recordedAtMillis = new long[c]; watts = new int[c]; minutes = new int[c];
+    }
+
+    public void add(long deviceId, long recordedAtMillis, int watt, int minutes) {
+      if (size == deviceIds.length) grow();
+      this.deviceIds[size] = deviceId;
+      this.recordedAtMillis[size] = recordedAtMillis;
+      this.watts[size] = watt;
+      this.minutes[size] = minutes;
+      size++;
+    }
+
+    public int size() { return size; }
+    public long deviceId(int i) { return deviceIds[i]; }
+    public long recordedAtMillis(int i) { return recordedAtMillis[i]; }
+    public int watt(int i) { return watts[i]; }
+    public int minutes(int i) { return minutes[i]; }
+
+    private void grow() {
+      int c = deviceIds.length * 2;
+      deviceIds = Arrays.copyOf(deviceIds, c);
+      recordedAtMillis = Arrays.copyOf(recordedAtMillis, c);
+      watts = Arrays.copyOf(watts, c);
+      minutes = Arrays.copyOf(minutes, c);
+    }
+  }
+
+  /** Resultado de un lote: filas nuevas y lecturas descartadas por duplicadas */
+  public record Result(List<Reading> saved, int duplicates) {}
+
+  /**
+   * Persiste el lote en una transacción; falla si algún dispositivo no existe o está borrado.
+   * Las lecturas (device, recordedAt) ya vistas se descartan sin ir a la base; si el índice único
+   * detecta un duplicado que el filtro no conocía (p.ej. tras un reinicio) se reintenta fila por fila.
+   */
+  public Result ingest(Batch batch) {
+    int duplicates = 0;
+    int[] rows = new int[batch.size()];
+    long[] keys = new long[batch.size()];
+    int n = 0;
+    Set<Long> inBatch = new HashSet<>();
+    for (int i = 0; i < batch.size(); i++) {
+      long key = RecentKeyFilter.naturalKey(batch.deviceId(i), batch.recordedAtMillis(i));
+      if (recentKeys.seenReading(key) || (key != 0 && !inBatch.add(key))) {
+        duplicates++;
+        continue;
+      }
+      rows[n] = i;
+      keys[n] = key;
+      n++;
+    }
+    if (n == 0) return new Result(List.of(), duplicates);
+
+    Map<Long, Device> byId = new HashMap<>();
+    int[] accepted = Arrays.copyOf(rows, n);
+    long[] acceptedKeys = Arrays.copyOf(keys, n);
+    try {
+      return new Result(tx.execute(s -> persist(batch, accepted, acceptedKeys, byId)), duplicates);
+    } catch (DataIntegrityViolationException ex) {
+      // la transacción del lote se revirtió completa: entidades nuevas por fila, cada una en su transacción
+      List<Reading> saved = new ArrayList<>(n);
+      for (int k = 0; k < n; k++) {
+        int[] one = {accepted[k]};
+        long[] oneKey = {acceptedKeys[k]};
+        try {
+          saved.addAll(tx.execute(s -> persist(batch, one, oneKey, byId)));
+        } catch (DataIntegrityViolationException dup) {
+          recentKeys.rememberReading(oneKey[0]);
+          duplicates++;
+        }
+      }
+      return new Result(saved, duplicates);
+    }
+  }
+
+  private List<Reading> persist(Batch batch, int[] rows, long[] keys, Map<Long, Device> byId) {
+    List<Reading> out = new ArrayList<>(rows.length);
+    Set<DirtyHourTracker.Bucket> touched = new HashSet<>();
+    for (int i : rows) {
+      // una consulta por dispositivo distinto, no por lectura
+      Device d = byId.computeIfAbsent(batch.deviceId(i), id ->
+          devices.findById(id).filter(x -> x.getDeletedAt() == null).orElseThrow());
+      Reading r = new Reading();
+      r.setDevice(d);
+      r.setWatt(batch.watt(i));
+      r.setMinutes(batch.minutes(i));
+      r.setRecordedAt(Instant.ofEpochMilli(batch.recordedAtMillis(i)));
+      out.add(r);
+      touched.add(new DirtyHourTracker.Bucket(d.getOwner().getId(), DirtyHourTracker.hourOf(r.getRecordedAt())));
+    }
+    // con IDENTITY saveAll ya inserta; el flush deja explícito que la violación del índice salga aquí
+    List<Reading> saved = readings.saveAll(out);
+    readings.flush();
+
+    // marcar horas sucias, claves vistas y estado en vivo solo tras el commit: si el lote se revierte, un reintento debe poder entrar
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        for (DirtyHourTracker.Bucket b : touched) dirtyHours.mark(b.ownerId(), b.start());
+        for (long key : keys) recentKeys.rememberReading(key);
+        for (Reading r : saved) {
+          live.record(r.getDevice().getOwner().getId(), r.getDevice().getId(), r.getId(), r.getRecordedAt(), r.getWatt(),
+              r.getMinutes());
+        }
+      }
+    });
+    return saved;
+  }
+
+  /** Lote de una sola lectura: si ya existía se devuelve la fila guardada */
+  public Reading ingestOne(Batch single) {
+    Result r = ingest(single);
+    if (!r.saved().isEmpty()) return r.saved().get(0);
+    return readings.findFirstByDeviceIdAndRecordedAt(single.deviceId(0), Instant.ofEpochMilli(single.recordedAtMillis(0)))
+        .orElseThrow();
+  }
+}
@@ -0,0 +1,99 @@
+package com.luminav.service;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.Reading;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.ReadingRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Consulta de lecturas por rango sobre las dos capas: tabla reading (caliente) + ReadingArchive (frío).
+ * Si el rango no llega a meses archivados es exactamente la consulta de siempre.
+ */
+@Service
+public class ReadingQueryService {
+
+  private final ReadingRepository readings;
+  private final DeviceRepository devices;
+  private final ReadingArchive archive;
+
+  public ReadingQueryService(ReadingRepository readings, DeviceRepository devices, ReadingArchive archive) {
+    this.readings = readings;
+    this.devices = devices;
+    this.archive = archive;
+  }
+
+  /** Lecturas del owner con recordedAt en [from, to]; deviceId opcional. Las archivadas no tienen id */
+  @Transactional(readOnly = true)
+  public List<Reading> list(Long ownerId, Instant from, Instant to, Long deviceId) {
+    List<Reading> hot = deviceId != null
+        ? readings.findByDeviceOwnerIdAndRecordedAtBetweenAndDeviceId(ownerId, from, to, deviceId)
+        : readings.findByDeviceOwnerIdAndRecordedAtBetween(ownerId, from, to);
+    Instant cutoff = archive.cutoff();
+    if (!from.isBefore(cutoff)) return hot;
+
+    // hasta un reintento del job, una fila puede estar en las dos capas: gana la caliente
+    Set<DeviceInstant> seen = new HashSet<>();
+    for (Reading r : hot) seen.add(new DeviceInstant(r.getDevice().getId(), r.getRecordedAt().toEpochMilli()));
+
+    List<Reading> merged = new ArrayList<>(hot);
+    Instant archiveTo = to.isBefore(cutoff) ? to.plusMillis(1) : cutoff; // 'to' inclusivo como el between
+    for (Device d : devices.findByOwner_IdAndDeletedAtIsNull(ownerId)) {
+      if (deviceId != null && !deviceId.equals(d.getId())) continue;
+      archive.scan(d.getId(), from, archiveTo, (t, watt, minutes) -> {
+        if (seen.contains(new DeviceInstant(d.getId(), t))) return;
+        Reading r = new Reading();
+        r.setDevice(d);
+        r.setRecordedAt(Instant.ofEpochMilli(t));
+        r.setWatt(watt);
+        r.setMinutes(minutes);
+        merged.add(r);
+      });
+    }
+    merged.sort(Comparator.comparing(Reading::getRecordedAt));
+    return merged;
+  }
+
+  /** Energía de una lectura (watt*minutes) con su dispositivo */
+  public record Usage(long deviceId, String deviceName, Instant recordedAt, long wattMinutes) {}
+
+  /**
+   * Lecturas de las ventanas [from1, to1) y [from2, to2) (una vacía si from == to) en las dos capas:
+   * lo que el dashboard todavía no tiene en hourly_rollup. Una consulta; el archivo solo si alguna
+   * ventana cae antes del cutoff.
+   */
+  @Transactional(readOnly = true)
+  public List<Usage> usage(Long ownerId, Instant from1, Instant to1, Instant from2, Instant to2) {
+    List<Usage> out = new ArrayList<>();
+    Set<DeviceInstant> seen = new HashSet<>();
+    for (Object[] row : readings.usageRows(ownerId, from1, to1, from2, to2)) {
+      Usage u = new Usage((Long) row[0], (String) row[1], (Instant) row[2], ((Number) row[3]).longValue());
+      out.add(u);
+      seen.add(new DeviceInstant(u.deviceId(), u.recordedAt().toEpochMilli()));
+    }
+    Instant cutoff = archive.cutoff();
+    boolean cold1 = from1.isBefore(to1) && from1.isBefore(cutoff);
+    boolean cold2 = from2.isBefore(to2) && from2.isBefore(cutoff);
+    if (!cold1 && !cold2) return out;
+
+    for (Device d : devices.findByOwner_IdAndDeletedAtIsNull(ownerId)) {
+      ReadingArchiveCodec.RowSink sink = (t, watt, minutes) -> {
+        if (seen.contains(new DeviceInstant(d.getId(), t))) return; // gana la caliente
+        out.add(new Usage(d.getId(), d.getName(), Instant.ofEpochMilli(t), (long) watt * minutes));
+      };
+      if (cold1) archive.scan(d.getId(), from1, min(to1, cutoff), sink);
+      if (cold2) archive.scan(d.getId(), from2, min(to2, cutoff), sink);
+    }
+    return out;
+  }
+
+  private static Instant min(Instant a, Instant b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  private record DeviceInstant(long deviceId, long millis) {}
+}
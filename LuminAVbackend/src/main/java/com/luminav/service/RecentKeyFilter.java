@@ -0,0 +1,169 @@
+package com.luminav.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtro en memoria (acotado) de claves de ingesta recientes:
+ *  - clave natural (deviceId, recordedAt) empaquetada exacta en un long, sin falsos positivos
+ *  - Idempotency-Key de los lotes, con alcance (batchKey): dos gateways que reutilizan la misma clave no
+ *    se pisan, porque la ingesta no es autenticada y la clave sola es global
+ * Dos generaciones: al vencer la ventana (o llenarse) la actual pasa a ser la anterior y la anterior se descarta.
+ * Es solo un atajo; el índice único (device_id, recorded_at) sigue siendo la garantía final.
+ *
+ * app.ingest.dedup-window-minutes=15
+ * app.ingest.dedup-max-keys=1000000   por generación (las tablas crecen según uso, no se reservan de entrada)
+ */
+@Component
+public class RecentKeyFilter {
+
+  // 20 bits de dispositivo + 43 bits de epoch millis (hasta ~año 2248) = 63 bits
+  private static final int MILLIS_BITS = 43;
+  private static final long MAX_DEVICE_ID = (1L << 20) - 1;
+  private static final long MAX_MILLIS = (1L << MILLIS_BITS) - 1;
+
+  private final long windowMillis;
+  private final LongGenerations natural;
+  private final Set<String>[] idempotency;
+  private volatile long idempotencyRotatedAt = System.currentTimeMillis();
+  private final int maxKeys;
+
+  @SuppressWarnings("unchecked")
+  public RecentKeyFilter(@Value("${app.ingest.dedup-window-minutes:15}") long windowMinutes,
+                         @Value("${app.ingest.dedup-max-keys:1000000}") int maxKeys) {
+    this.windowMillis = windowMinutes * 60_000L;
+    this.maxKeys = Math.max(16, maxKeys);
+    this.natural = new LongGenerations(this.maxKeys, windowMillis);
+    this.idempotency = new Set[]{ConcurrentHashMap.newKeySet(), ConcurrentHashMap.newKeySet()};
+  }
+
+  /** Clave natural exacta, o 0 si no cabe en 63 bits (esa lectura solo la protege el índice único) */
+  public static long naturalKey(long deviceId, long recordedAtMillis) {
+    if (deviceId <= 0 || deviceId > MAX_DEVICE_ID || recordedAtMillis < 0 || recordedAtMillis > MAX_MILLIS) return 0;
+    return (deviceId << MILLIS_BITS) | recordedAtMillis;
+  }
+
+  public boolean seenReading(long key) {
+    return key != 0 && natural.contains(key);
+  }
+
+  public void rememberReading(long key) {
+    if (key != 0) natural.add(key);
+  }
+
+  /**
+   * Clave de lote con alcance: X-Gateway-Id + Idempotency-Key + huella de los dispositivos del lote.
+   * Un mismo gateway que reintenta el mismo lote produce la misma clave; otro gateway (o el mismo con
+   * otros dispositivos) no, aunque repita la Idempotency-Key.
+   */
+  public static String batchKey(String gatewayId, String idempotencyKey, ReadingIngestService.Batch batch) {
+    long[] ids = new long[batch.size()];
+    for (int i = 0; i < ids.length; i++) ids[i] = batch.deviceId(i);
+    Arrays.sort(ids);
+    long h = 0xcbf29ce484222325L; // FNV-1a de 64 bits sobre los ids distintos
+    for (int i = 0; i < ids.length; i++) {
+      if (i > 0 && ids[i] == ids[i - 1]) continue;
+      h = (h ^ ids[i]) * 0x100000001b3L;
+    }
+    String gateway = gatewayId == null ? "" : gatewayId;
+    if (gateway.length() > 64) gateway = gateway.substring(0, 64);
+    return gateway.length() + ":" + gateway + '|' + Long.toHexString(h) + '|' + idempotencyKey;
+  }
+
+  public boolean seenBatch(String idempotencyKey) {
+    rotateIdempotency();
+    return idempotency[0].contains(idempotencyKey) || idempotency[1].contains(idempotencyKey);
+  }
+
+  public void rememberBatch(String idempotencyKey) {
+    rotateIdempotency();
+    idempotency[0].add(idempotencyKey);
+  }
+
+  private void rotateIdempotency() {
+    long now = System.currentTimeMillis();
+    if (now - idempotencyRotatedAt < windowMillis && idempotency[0].size() < maxKeys) return;
+    synchronized (idempotency) {
+      if (now - idempotencyRotatedAt < windowMillis && idempotency[0].size() < maxKeys) return;
+      idempotency[1] = idempotency[0];
+      idempotency[0] = ConcurrentHashMap.newKeySet();
+      idempotencyRotatedAt = now;
+    }
+  }
+
+  /**
+   * Dos tablas hash de longs (direccionamiento abierto, 0 = vacío): ~16 bytes por clave, sin boxing.
+   * Empiezan pequeñas y se duplican al pasar de carga 0.5; una generación nueva vuelve al tamaño inicial.
+   */
+  static final class LongGenerations {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int maxPerGeneration;
+    private final long windowMillis;
+    private long[] current;
+    private long[] previous;
+    private int currentSize;
+    private long rotatedAt = System.currentTimeMillis();
+
+    LongGenerations(int maxPerGeneration, long windowMillis) {
+      this.maxPerGeneration = maxPerGeneration;
+      this.windowMillis = windowMillis;
+      this.current = new long[INITIAL_CAPACITY];
+      this.previous = new long[INITIAL_CAPACITY];
+    }
+
+    int capacity() {
+      return current.length;
+    }
+
+    synchronized boolean contains(long key) {
+      maybeRotate();
+      return find(current, key) || find(previous, key);
+    }
+
+    synchronized void add(long key) {
+      maybeRotate();
+      if (find(previous, key)) return;
+      if (insert(current, key)) currentSize++;
+      if (currentSize * 2 > current.length) {
+        long[] bigger = new long[current.length * 2];
+        for (long k : current) if (k != 0) insert(bigger, k);
+        current = bigger;
+      }
+    }
+
+    private static boolean insert(long[] t, long key) {
+      int mask = t.length - 1;
+      for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+        if (t[i] == key) return false;
+        if (t[i] == 0) { t[i] = key; return true; }
+      }
+    }
+
+    private void maybeRotate() {
+      long now = System.currentTimeMillis();
+      if (now - rotatedAt < windowMillis && currentSize < maxPerGeneration) return;
+      previous = current;
+      current = new long[INITIAL_CAPACITY];
+      currentSize = 0;
+      rotatedAt = now;
+    }
+
+    private static boolean find(long[] t, long key) {
+      int mask = t.length - 1;
+      for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+        if (t[i] == key) return true;
+        if (t[i] == 0) return false;
+      }
+    }
+
+    private static int mix(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+}
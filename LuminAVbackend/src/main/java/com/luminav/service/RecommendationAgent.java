@@ -2,9 +2,11 @@
 
 package com.luminav.service;
 
-import com.luminav.entity.Reading;
+import com.luminav.entity.Device;
 import com.luminav.entity.Recommendation;
+import com.luminav.entity.Tariff;
 import com.luminav.entity.User;
+import com.luminav.repository.HourlyRollupRepository;
 import com.luminav.repository.ReadingRepository;
 import com.luminav.repository.RecommendationRepository;
 import com.luminav.repository.TariffRepository;
@@ -12,13 +14,16 @@ import com.luminav.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.List;
-import java.util.Map;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class RecommendationAgent {
@@ -26,28 +31,62 @@ public class RecommendationAgent {
   private final UserRepository users;
   private final ReadingRepository readings;
   private final RecommendationRepository recos;
-  private final ForecastService forecast;
+  private final HourlyRollupRepository rollups;
   private final TariffRepository tariffs;
+  private final LiveDeviceRegistry live;
+  // Lecturas del agente en transacción readOnly (réplica si está configurada); el save va al primario
+  private final TransactionTemplate readTx;
 
   // Usa la misma TZ que tu front (Colombia)
-  private static final ZoneId ZONE = ZoneId.of("America/Bogota");
+  private static final ZoneId ZONE = TariffPricing.ZONE;
+
+  // Días de historia para el baseline (misma hora del día)
+  private static final int BASELINE_DAYS = 7;
 
   // Ventana móvil (minutos) configurable (por defecto 60)
   @Value("${app.agent.window-minutes:60}")
   private int windowMinutes;
 
+  // Minutos encendido sin interrupción antes de avisar "se quedó encendido"
+  @Value("${app.agent.left-on-minutes:180}")
+  private long leftOnMinutes;
+
+  // Aviso "encendido" ya emitido por dispositivo: onSince del tramo avisado (uno por tramo, no uno por ejecución)
+  private final Map<Long, Instant> leftOnAlerted = new ConcurrentHashMap<>();
+
+  /** Reglas por dispositivo que se avisan una vez por episodio */
+  private enum DeviceRule { ABOVE_HISTORY, ABOVE_RATED }
+
+  private record AlertKey(long deviceId, DeviceRule rule) {}
+
+  // Reglas por dispositivo que se cumplían en la última ejecución, por owner: solo se avisa al entrar en
+  // el episodio; cuando la condición deja de cumplirse se rearma (igual que "se quedó encendido")
+  private final Map<Long, Set<AlertKey>> deviceEpisodes = new ConcurrentHashMap<>();
+
+  // Margen sobre la potencia nominal del dispositivo antes de avisar (1.2 = +20%)
+  @Value("${app.agent.rated-watt-tolerance:1.2}")
+  private double ratedWattTolerance;
+
+  /** Uso de un dispositivo en la ventana (fila de la consulta agrupada) */
+  private record DeviceWindow(Long deviceId, String name, Integer ratedWatt, double kwh, double avgWatt) {}
+
   public RecommendationAgent(
       UserRepository users,
       ReadingRepository readings,
       RecommendationRepository recos,
-      ForecastService forecast,
-      TariffRepository tariffs
+      HourlyRollupRepository rollups,
+      TariffRepository tariffs,
+      LiveDeviceRegistry live,
+      PlatformTransactionManager txManager
   ) {
     this.users = users;
     this.readings = readings;
     this.recos = recos;
-    this.forecast = forecast;
+    this.rollups = rollups;
     this.tariffs = tariffs;
+    this.live = live;
+    this.readTx = new TransactionTemplate(txManager);
+    this.readTx.setReadOnly(true);
   }
 
   /**
@@ -59,84 +98,165 @@ public class RecommendationAgent {
       fixedDelayString = "${app.agent.fixed-delay-ms:60000}",
       initialDelayString = "${app.agent.initial-delay-ms:5000}"
   )
-  @Transactional
   public void scheduledRun() {
-    for (User u : users.findAll()) {
-      generateForOwner(u.getId());
+    List<Long> ownerIds = readTx.execute(s -> users.findAllIds());
+    for (Long ownerId : ownerIds) {
+      generateForOwner(ownerId);
     }
   }
 
   /** Permite disparar manualmente desde un endpoint */
-  @Transactional
   public void generateForOwner(Long ownerId) {
+    List<Recommendation> out = readTx.execute(s -> evaluate(ownerId));
+    if (out != null && !out.isEmpty()) recos.saveAll(out);
+  }
+
+  /**
+   * Solo lecturas; retorna las recomendaciones a guardar.
+   * Tres consultas por owner (igual que antes): ventana agrupada por dispositivo,
+   * baseline por dispositivo desde rollups y tarifa. El total del hogar sale de sumar dispositivos.
+   * La regla "se quedó encendido" lee el estado en vivo (LiveDeviceRegistry), sin consultas.
+   */
+  private List<Recommendation> evaluate(Long ownerId) {
+    final List<Recommendation> out = new ArrayList<>();
+    final Map<AlertKey, Recommendation> deviceAlerts = new LinkedHashMap<>();
+    evaluateWindow(ownerId, out, deviceAlerts);
+    out.addAll(newEpisodes(ownerId, deviceAlerts));
+    return out;
+  }
+
+  // Reglas sobre la ventana; las de cada dispositivo van a deviceAlerts y pasan por el filtro de episodio
+  private void evaluateWindow(Long ownerId, List<Recommendation> out, Map<AlertKey, Recommendation> deviceAlerts) {
     // Ventana móvil: [now - windowMinutes, now)
+    final int minutes = Math.max(1, windowMinutes);
     final ZonedDateTime nowZ = ZonedDateTime.now(ZONE);
-    final ZonedDateTime startZ = nowZ.minusMinutes(Math.max(1, windowMinutes));
+    final ZonedDateTime startZ = nowZ.minusMinutes(minutes);
     final Instant start = startZ.toInstant();
     final Instant end   = nowZ.toInstant();
     final int hourLabel = nowZ.getHour(); // para baseline por hora
 
-    // Lecturas recientes del owner
-    final List<Reading> window =
-        readings.findByDeviceOwnerIdAndRecordedAtBetween(ownerId, start, end);
-    if (window == null || window.isEmpty()) return;
+    // Uso reciente por dispositivo (una consulta agrupada)
+    final List<DeviceWindow> window = new ArrayList<>();
+    for (Object[] row : readings.windowUsageByDevice(ownerId, start, end)) {
+      double wattMinutes = ((Number) row[3]).doubleValue();
+      double sumMinutes = ((Number) row[4]).doubleValue();
+      window.add(new DeviceWindow((Long) row[0], (String) row[1], (Integer) row[2],
+          wattMinutes / 60_000.0, sumMinutes > 0 ? wattMinutes / sumMinutes : 0.0));
+    }
+    out.addAll(leftOn(ownerId, window, end));
+    if (window.isEmpty()) return;
 
     // kWh sumados en la ventana
-    final double kwh = window.stream().mapToDouble(this::kwh).sum();
+    final double kwh = window.stream().mapToDouble(DeviceWindow::kwh).sum();
     if (kwh < 0.01d) return; // ignora valores muy pequeños
 
-    // Baseline esperado para esta hora (últimos 7 días)
-    Map<Integer, Double> baseline;
-    try {
-      baseline = forecast.hourlyBaseline(ownerId, 7);
-    } catch (Exception ex) {
-      baseline = Map.of();
-    }
-    double expected = baseline.getOrDefault(hourLabel, 0.0);
+    // Baseline esperado para esta hora (últimos 7 días), por dispositivo
+    final Map<Long, Double> expectedByDevice = baselineByDevice(ownerId, nowZ, minutes);
+    double expected = expectedByDevice.values().stream().mapToDouble(Double::doubleValue).sum();
     if (expected <= 0.0) expected = 0.01;
 
-    // ¿Hora pico? según tarifa (peakStart/peakEnd en horas)
-    final boolean isPeak = tariffs.findByOwnerId(ownerId)
-        .map(t -> inPeak(hourLabel, t.getPeakStart(), t.getPeakEnd()))
-        .orElse(false);
+    // ¿Hora pico? según la franja TOU de la tarifa (o peakStart/peakEnd si no hay franjas)
+    final boolean weekend = TariffPricing.isWeekend(end);
+    final Tariff tariff = TariffPricing.inForce(tariffs.findByOwner_IdOrderByEffectiveFromDesc(ownerId), end);
+    final boolean isPeak = "PEAK".equals(TariffPricing.rateAt(tariff, hourLabel, weekend).band());
+    final String level = isPeak ? "ALERT" : "WARN";
 
     // Regla: exceso > +25% sobre lo esperado
     final double threshold = expected * 1.25;
     if (kwh > threshold) {
-      final String level = isPeak ? "ALERT" : "WARN";
       final String msg = String.format(
           "Consumo alto (últimos %d min) — %.3f kWh (esperado ~%.3f kWh). %s",
-          Math.max(1, windowMinutes),
+          minutes,
           kwh,
           expected,
           isPeak
               ? "Hora pico: programa cargas fuera de 14:00–20:00."
               : "Revisa luces/equipos encendidos innecesariamente."
       );
+      out.add(newRecommendation(ownerId, null, level, msg));
+    }
+
+    // Reglas por dispositivo: contra su propia historia y contra su potencia nominal
+    for (DeviceWindow d : window) {
+      double devExpected = expectedByDevice.getOrDefault(d.deviceId(), 0.0);
+      if (devExpected > 0.0 && d.kwh() >= 0.01d && d.kwh() > devExpected * 1.25) {
+        deviceAlerts.put(new AlertKey(d.deviceId(), DeviceRule.ABOVE_HISTORY), newRecommendation(ownerId, d.deviceId(),
+            level, String.format("%s consume más de lo habitual (últimos %d min) — %.3f kWh (esperado ~%.3f kWh).",
+                d.name(), minutes, d.kwh(), devExpected)));
+      }
+      if (d.ratedWatt() != null && d.ratedWatt() > 0 && d.avgWatt() > d.ratedWatt() * ratedWattTolerance) {
+        deviceAlerts.put(new AlertKey(d.deviceId(), DeviceRule.ABOVE_RATED), newRecommendation(ownerId, d.deviceId(),
+            "WARN", String.format(
+                "%s opera a ~%.0f W, por encima de su potencia nominal (%d W). Revisa el equipo o su configuración.",
+                d.name(), d.avgWatt(), d.ratedWatt())));
+      }
+    }
+  }
+
+  // Deja pasar solo las reglas que no se cumplían en la ejecución anterior y recuerda las de esta
+  private List<Recommendation> newEpisodes(Long ownerId, Map<AlertKey, Recommendation> firing) {
+    Set<AlertKey> before = firing.isEmpty()
+        ? deviceEpisodes.remove(ownerId)
+        : deviceEpisodes.put(ownerId, Set.copyOf(firing.keySet()));
+    List<Recommendation> out = new ArrayList<>();
+    firing.forEach((key, r) -> {
+      if (before == null || !before.contains(key)) out.add(r);
+    });
+    return out;
+  }
 
-      final Recommendation r = new Recommendation();
-      final User owner = new User(); owner.setId(ownerId);
-      r.setOwner(owner);
-      r.setLevel(level);     // "INFO" | "WARN" | "ALERT"
-      r.setStatus("NEW");    // importante: evita NOT NULL
-      r.setMessage(msg);
-      r.setCreatedAt(Instant.now());
-      recos.save(r);
+  // Dispositivos en línea encendidos sin interrupción más de leftOnMinutes
+  private List<Recommendation> leftOn(Long ownerId, List<DeviceWindow> window, Instant now) {
+    Map<Long, String> names = new HashMap<>();
+    for (DeviceWindow d : window) names.put(d.deviceId(), d.name());
+    List<Recommendation> out = new ArrayList<>();
+    for (LiveDeviceRegistry.Snapshot s : live.snapshots(ownerId)) {
+      if (s.onSince() == null || !live.isOnline(s, now)) {
+        leftOnAlerted.remove(s.deviceId()); // se apagó: el próximo tramo vuelve a avisar
+        continue;
+      }
+      long onMinutes = Duration.between(s.onSince(), now).toMinutes();
+      if (onMinutes < leftOnMinutes || s.onSince().equals(leftOnAlerted.get(s.deviceId()))) continue;
+      leftOnAlerted.put(s.deviceId(), s.onSince());
+      out.add(newRecommendation(ownerId, s.deviceId(), "WARN", String.format(
+          "%s lleva encendido %d h %02d min (~%d W ahora). ¿Se quedó prendido?",
+          names.getOrDefault(s.deviceId(), "Dispositivo #" + s.deviceId()),
+          onMinutes / 60, onMinutes % 60, s.watt())));
     }
+    return out;
   }
 
-  private boolean inPeak(int hour, Integer peakStart, Integer peakEnd) {
-    if (peakStart == null || peakEnd == null) return false;
-    if (peakStart.equals(peakEnd)) return true; // todo el día
-    if (peakStart < peakEnd) { // [start, end)
-      return hour >= peakStart && hour < peakEnd;
+  // kWh esperados por dispositivo en la ventana: promedio de la misma hora en los últimos 7 días
+  private Map<Long, Double> baselineByDevice(Long ownerId, ZonedDateTime nowZ, int minutes) {
+    ZonedDateTime hour = nowZ.truncatedTo(ChronoUnit.HOURS);
+    List<Instant> buckets = new ArrayList<>(BASELINE_DAYS);
+    for (int k = 1; k <= BASELINE_DAYS; k++) buckets.add(hour.minusDays(k).toInstant());
+
+    // escala la hora completa al tamaño de la ventana (60 min -> factor 1)
+    double scale = minutes / 60.0;
+    Map<Long, Double> out = new HashMap<>();
+    try {
+      for (Object[] row : rollups.sumKwhByDeviceForBuckets(ownerId, buckets)) {
+        out.put((Long) row[0], ((Number) row[1]).doubleValue() / BASELINE_DAYS * scale);
+      }
+    } catch (Exception ex) {
+      return Map.of();
     }
-    // Cruza medianoche (ej: 21–6)
-    return hour >= peakStart || hour < peakEnd;
+    return out;
   }
 
-  private double kwh(Reading r) {
-    final double hours = (r.getMinutes() == null ? 60 : r.getMinutes()) / 60.0;
-    return (r.getWatt() * hours) / 1000.0;
+  private Recommendation newRecommendation(Long ownerId, Long deviceId, String level, String msg) {
+    final Recommendation r = new Recommendation();
+    final User owner = new User(); owner.setId(ownerId);
+    r.setOwner(owner);
+    if (deviceId != null) {
+      final Device device = new Device(); device.setId(deviceId);
+      r.setDevice(device);
+    }
+    r.setLevel(level);     // "INFO" | "WARN" | "ALERT"
+    r.setStatus("NEW");    // importante: evita NOT NULL
+    r.setMessage(msg.length() > 500 ? msg.substring(0, 500) : msg);
+    r.setCreatedAt(Instant.now());
+    return r;
   }
 }
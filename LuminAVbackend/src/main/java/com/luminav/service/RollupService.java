@@ -0,0 +1,308 @@
+package com.luminav.service;
+
+import com.luminav.entity.HourlyRollup;
+import com.luminav.entity.RollupBackfill;
+import com.luminav.entity.Tariff;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.HourlyRollupRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.RollupBackfillRepository;
+import com.luminav.repository.TariffRepository;
+import com.luminav.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene hourly_rollup recalculando solo las horas marcadas por DirtyHourTracker.
+ * Por cada hora sucia se hace una consulta agrupada para todos sus owners (en bloques).
+ * El costo se calcula aquí con la franja TOU de la versión de tarifa vigente en esa hora y queda guardado junto al kWh.
+ *
+ * app.rollup.delay-ms=10000
+ * app.rollup.max-buckets-per-run=5000
+ * app.rollup.owners-per-query=500
+ * app.rollup.bootstrap-hours=192   horas recalculadas al arrancar (el tracker vive en memoria), por tandas de owners
+ * app.rollup.backfill-delay-ms=30000
+ * app.rollup.backfill-hours-per-run=168   horas hacia atrás por ejecución del backfill
+ */
+@Service
+public class RollupService {
+
+  private final ReadingRepository readings;
+  private final HourlyRollupRepository rollups;
+  private final UserRepository users;
+  private final TariffRepository tariffs;
+  private final DirtyHourTracker tracker;
+  private final DeviceRepository devices;
+  private final ReadingArchive archive;
+  private final RollupBackfillRepository backfills;
+  private final TransactionTemplate tx;
+
+  @Value("${app.rollup.max-buckets-per-run:5000}")
+  private int maxBucketsPerRun;
+
+  @Value("${app.rollup.owners-per-query:500}")
+  private int ownersPerQuery;
+
+  @Value("${app.rollup.bootstrap-hours:192}")
+  private int bootstrapHours;
+
+  @Value("${app.rollup.backfill-hours-per-run:168}")
+  private int backfillHoursPerRun;
+
+  // Bootstrap pendiente: último owner ya marcado (null = nada pendiente) y hora de arranque
+  private volatile Long bootstrapCursor;
+  private volatile long bootstrapHour;
+
+  public RollupService(ReadingRepository readings, HourlyRollupRepository rollups, UserRepository users,
+                       TariffRepository tariffs, DirtyHourTracker tracker, DeviceRepository devices,
+                       ReadingArchive archive, RollupBackfillRepository backfills, PlatformTransactionManager txManager) {
+    this.readings = readings;
+    this.rollups = rollups;
+    this.users = users;
+    this.tariffs = tariffs;
+    this.tracker = tracker;
+    this.devices = devices;
+    this.archive = archive;
+    this.backfills = backfills;
+    this.tx = new TransactionTemplate(txManager);
+  }
+
+  /**
+   * Recupera las horas recientes (baseline de 7 días + margen) tras un reinicio; lo anterior lo completa backfill().
+   * No marca todo de una vez: deja un cursor y flushDirty marca la siguiente tanda de owners cuando el tracker
+   * tiene sitio, así en memoria hay a lo sumo ~max-buckets-per-run horas del bootstrap.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void bootstrap() {
+    long now = DirtyHourTracker.hourOf(Instant.now());
+    bootstrapHour = now;
+    bootstrapCursor = bootstrapHours > 0 ? 0L : null;
+    // owners sin avance registrado (p.ej. base existente): el backfill empieza justo antes de esas horas
+    backfills.startMissing(Instant.ofEpochSecond(now - (bootstrapHours - 1L) * 3600L));
+  }
+
+  boolean bootstrapPending() {
+    return bootstrapCursor != null;
+  }
+
+  // Marca las horas del bootstrap para la siguiente tanda de owners (cabe en una ejecución de flushDirty)
+  private void markBootstrapChunk() {
+    Long cursor = bootstrapCursor;
+    int budget = Math.max(1, maxBucketsPerRun);
+    if (cursor == null || tracker.pending() >= budget) return;
+    int perOwner = Math.max(1, bootstrapHours);
+    List<Long> ownerIds = users.findIdsAfter(cursor, PageRequest.of(0, Math.max(1, budget / perOwner)));
+    List<DirtyHourTracker.Bucket> buckets = new ArrayList<>(ownerIds.size() * perOwner);
+    for (Long ownerId : ownerIds) {
+      for (int h = 0; h < bootstrapHours; h++) {
+        buckets.add(new DirtyHourTracker.Bucket(ownerId, bootstrapHour - h * 3600L));
+      }
+    }
+    tracker.markAll(buckets);
+    bootstrapCursor = ownerIds.isEmpty() ? null : ownerIds.get(ownerIds.size() - 1);
+  }
+
+  /**
+   * Completa hourly_rollup hacia atrás hasta la lectura más antigua de cada owner (caliente o archivada).
+   * Los owners con el mismo avance bajan juntos: una consulta por hora para el bloque, como flushDirty.
+   * A lo sumo backfill-hours-per-run horas por ejecución; si un recalculo falla queda guardado el avance
+   * hasta la última hora completa y la próxima ejecución sigue desde ahí.
+   */
+  @Scheduled(
+      fixedDelayString = "${app.rollup.backfill-delay-ms:30000}",
+      initialDelayString = "${app.rollup.backfill-initial-delay-ms:60000}"
+  )
+  public void backfill() {
+    List<RollupBackfill> pending = backfills.findByFinishedAtIsNullOrderByBackfilledFromDesc(
+        PageRequest.of(0, Math.max(1, ownersPerQuery)));
+    if (pending.isEmpty()) return;
+    resolveFloors(pending);
+
+    int budget = Math.max(1, backfillHoursPerRun);
+    Map<Instant, List<RollupBackfill>> byCursor = new TreeMap<>(Comparator.reverseOrder());
+    for (RollupBackfill b : pending) {
+      if (b.getFinishedAt() == null) byCursor.computeIfAbsent(b.getBackfilledFrom(), k -> new ArrayList<>()).add(b);
+    }
+    for (Map.Entry<Instant, List<RollupBackfill>> group : byCursor.entrySet()) {
+      if (budget <= 0) return;
+      List<RollupBackfill> active = group.getValue();
+      Instant hour = group.getKey();
+      Instant done = hour;
+      try {
+        while (budget > 0 && !active.isEmpty()) {
+          hour = hour.minus(Duration.ofHours(1));
+          recompute(active.stream().map(RollupBackfill::getOwnerId).toList(), hour);
+          budget--;
+          done = hour;
+          List<Long> finished = new ArrayList<>();
+          List<RollupBackfill> next = new ArrayList<>(active.size());
+          for (RollupBackfill b : active) {
+            if (hour.isAfter(b.getFloorHour())) next.add(b);
+            else finished.add(b.getOwnerId());
+          }
+          if (!finished.isEmpty()) {
+            backfills.advance(finished, hour);
+            backfills.finish(finished, Instant.now());
+          }
+          active = next;
+        }
+      } catch (RuntimeException ex) {
+        budget = 0; // se retoma en la próxima ejecución
+      }
+      if (!active.isEmpty() && done.isBefore(group.getKey())) {
+        backfills.advance(active.stream().map(RollupBackfill::getOwnerId).toList(), done);
+      }
+    }
+  }
+
+  // Hora de la lectura más antigua por owner, calculada una vez: tabla reading + meses archivados
+  private void resolveFloors(List<RollupBackfill> pending) {
+    List<Long> ownerIds = pending.stream().filter(b -> b.getFloorHour() == null).map(RollupBackfill::getOwnerId).toList();
+    if (ownerIds.isEmpty()) return;
+    Map<Long, Instant> oldest = new HashMap<>();
+    for (Object[] row : readings.oldestByDevice(ownerIds)) oldest.merge((Long) row[0], (Instant) row[1], RollupService::min);
+    for (Object[] od : devices.activeIdsByOwner(ownerIds)) {
+      YearMonth m = archive.oldestMonth((Long) od[1]);
+      if (m != null) oldest.merge((Long) od[0], ReadingArchive.monthStart(m), RollupService::min);
+    }
+    List<RollupBackfill> resolved = new ArrayList<>(ownerIds.size());
+    for (RollupBackfill b : pending) {
+      if (b.getFloorHour() != null) continue;
+      Instant first = oldest.get(b.getOwnerId());
+      // sin lecturas: nada que completar
+      b.setFloorHour(first == null ? b.getBackfilledFrom() : first.truncatedTo(ChronoUnit.HOURS));
+      if (!b.getBackfilledFrom().isAfter(b.getFloorHour())) b.setFinishedAt(Instant.now());
+      resolved.add(b);
+    }
+    backfills.saveAll(resolved);
+  }
+
+  private static Instant min(Instant a, Instant b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  @Scheduled(
+      fixedDelayString = "${app.rollup.delay-ms:10000}",
+      initialDelayString = "${app.rollup.initial-delay-ms:10000}"
+  )
+  public void flushDirty() {
+    markBootstrapChunk();
+    List<DirtyHourTracker.Bucket> batch = tracker.drain(Math.max(1, maxBucketsPerRun));
+    if (batch.isEmpty()) return;
+
+    // agrupar por hora: una consulta por hora para muchos owners
+    Map<Long, List<Long>> ownersByHour = batch.stream().collect(Collectors.groupingBy(
+        DirtyHourTracker.Bucket::hourEpochSecond, TreeMap::new,
+        Collectors.mapping(DirtyHourTracker.Bucket::ownerId, Collectors.toList())));
+
+    ownersByHour.forEach((hour, owners) -> {
+      int chunk = Math.max(1, ownersPerQuery);
+      for (int i = 0; i < owners.size(); i += chunk) {
+        List<Long> part = owners.subList(i, Math.min(owners.size(), i + chunk));
+        try {
+          recompute(part, Instant.ofEpochSecond(hour));
+        } catch (RuntimeException ex) {
+          // se reintenta en la próxima ejecución
+          tracker.markAll(part.stream().map(o -> new DirtyHourTracker.Bucket(o, hour)).toList());
+        }
+      }
+    });
+  }
+
+  /** Recalcula (borra e inserta) los rollups de una hora para un bloque de owners */
+  public void recompute(Collection<Long> ownerIds, Instant hourStart) {
+    Instant hourEnd = hourStart.plus(Duration.ofHours(1));
+    final int localHour = TariffPricing.localHour(hourStart);
+    final boolean weekend = TariffPricing.isWeekend(hourStart);
+    tx.executeWithoutResult(s -> {
+      List<Object[]> rows = readings.sumWattMinutesByDevice(ownerIds, hourStart, hourEnd);
+      // hora de un mes archivado (p.ej. llegó una lectura tardía): sumar también lo que está en el archivo frío
+      if (hourStart.isBefore(archive.cutoff())) rows = withArchived(rows, ownerIds, hourStart, hourEnd);
+      // versión vigente en esa hora, no la actual: una lectura tardía no se tarifa con un precio posterior
+      Map<Long, List<Tariff>> versionsByOwner = new HashMap<>();
+      for (Tariff t : tariffs.findByOwner_IdIn(ownerIds)) {
+        versionsByOwner.computeIfAbsent(t.getOwner().getId(), k -> new ArrayList<>()).add(t);
+      }
+      Map<Long, Tariff> tariffByOwner = new HashMap<>();
+      versionsByOwner.forEach((owner, versions) -> tariffByOwner.put(owner, TariffPricing.inForce(versions, hourStart)));
+
+      rollups.deleteBucket(ownerIds, hourStart);
+      List<HourlyRollup> fresh = new ArrayList<>(rows.size());
+      for (Object[] row : rows) {
+        HourlyRollup r = new HourlyRollup();
+        r.setOwnerId((Long) row[0]);
+        r.setDeviceId((Long) row[1]);
+        r.setBucketStart(hourStart);
+        r.setKwh(((Number) row[2]).doubleValue() / 60_000.0); // watt*min -> kWh
+        r.setSamples(((Number) row[3]).intValue());
+        TariffPricing.Rate rate = TariffPricing.rateAt(tariffByOwner.get(r.getOwnerId()), localHour, weekend);
+        r.setCost(r.getKwh() * rate.pricePerKwh());
+        r.setBand(rate.band());
+        r.setLocalHour(localHour);
+        r.setWeekend(weekend);
+        fresh.add(r);
+      }
+      rollups.saveAll(fresh);
+    });
+  }
+
+  // Mezcla [ownerId, deviceId, sum(watt*minutes), count] de la tabla con las sumas del archivo
+  private List<Object[]> withArchived(List<Object[]> hot, Collection<Long> ownerIds, Instant from, Instant to) {
+    Map<Long, Object[]> byDevice = new LinkedHashMap<>();
+    for (Object[] row : hot) byDevice.put((Long) row[1], row);
+    for (Object[] od : devices.activeIdsByOwner(ownerIds)) {
+      Long deviceId = (Long) od[1];
+      long[] cold = archive.sumWattMinutes(deviceId, from, to);
+      if (cold[1] == 0) continue;
+      Object[] row = byDevice.get(deviceId);
+      if (row != null) {
+        // una caída entre escribir el archivo y borrar deja filas en las dos capas: gana la caliente
+        Set<Long> hotMillis = new HashSet<>();
+        for (Instant t : readings.recordedAtBetween(deviceId, from, to)) hotMillis.add(t.toEpochMilli());
+        cold = archive.sumWattMinutes(deviceId, from, to, hotMillis::contains);
+      }
+      long wattMinutes = cold[0] + (row == null ? 0 : ((Number) row[2]).longValue());
+      long count = cold[1] + (row == null ? 0 : ((Number) row[3]).longValue());
+      byDevice.put((Long) od[1], new Object[]{od[0], od[1], wattMinutes, count});
+    }
+    return new ArrayList<>(byDevice.values());
+  }
+
+  /**
+   * Re-tarifa los rollups del owner en [from, to) tras guardar una versión de tarifa; to == null: sin fin.
+   * Un UPDATE por (franja, tipo de día): no se leen lecturas ni horas fuera del periodo de la versión.
+   */
+  @Transactional
+  public int reprice(Long ownerId, Tariff tariff, Instant from, Instant to) {
+    Map<TariffPricing.Rate, Map<Boolean, List<Integer>>> groups = new LinkedHashMap<>();
+    for (boolean weekend : new boolean[]{false, true}) {
+      for (int h = 0; h < 24; h++) {
+        groups.computeIfAbsent(TariffPricing.rateAt(tariff, h, weekend), k -> new HashMap<>())
+            .computeIfAbsent(weekend, k -> new ArrayList<>())
+            .add(h);
+      }
+    }
+    int updated = 0;
+    for (Map.Entry<TariffPricing.Rate, Map<Boolean, List<Integer>>> g : groups.entrySet()) {
+      for (Map.Entry<Boolean, List<Integer>> byDay : g.getValue().entrySet()) {
+        updated += rollups.reprice(ownerId, from, to, byDay.getKey(), byDay.getValue(),
+            g.getKey().band(), g.getKey().pricePerKwh());
+      }
+    }
+    return updated;
+  }
+}
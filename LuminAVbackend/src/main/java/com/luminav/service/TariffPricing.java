@@ -0,0 +1,76 @@
+package com.luminav.service;
+
+import com.luminav.entity.Tariff;
+import com.luminav.entity.TariffBand;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+
+/**
+ * Resuelve franja y precio de una hora según la tarifa TOU del owner.
+ * Sin franjas se usa pricePerKwh; si hay peakStart/peakEnd la hora se etiqueta PEAK/OFF_PEAK.
+ */
+public final class TariffPricing {
+
+  // Misma TZ que el agente y el front (Colombia)
+  public static final ZoneId ZONE = ZoneId.of("America/Bogota");
+  public static final double DEFAULT_PRICE = 650.0; // COP/kWh por defecto
+
+  public record Rate(String band, double pricePerKwh) {}
+
+  private TariffPricing() {}
+
+  public static int localHour(Instant t) {
+    return ZonedDateTime.ofInstant(t, ZONE).getHour();
+  }
+
+  public static boolean isWeekend(Instant t) {
+    DayOfWeek d = ZonedDateTime.ofInstant(t, ZONE).getDayOfWeek();
+    return d == DayOfWeek.SATURDAY || d == DayOfWeek.SUNDAY;
+  }
+
+  /** Versión vigente en 'at': la de effectiveFrom más reciente que no sea posterior; null si no hay ninguna */
+  public static Tariff inForce(Collection<Tariff> versions, Instant at) {
+    Tariff match = null;
+    for (Tariff t : versions) {
+      if (t.getEffectiveFrom().isAfter(at)) continue;
+      if (match == null || t.getEffectiveFrom().isAfter(match.getEffectiveFrom())) match = t;
+    }
+    return match;
+  }
+
+  public static Rate rateAt(Tariff t, Instant hourStart) {
+    return rateAt(t, localHour(hourStart), isWeekend(hourStart));
+  }
+
+  public static Rate rateAt(Tariff t, int localHour, boolean weekend) {
+    if (t == null) return new Rate("FLAT", DEFAULT_PRICE);
+    TariffBand match = null;
+    for (TariffBand b : t.getBands()) {
+      if (!appliesTo(b.getDays(), weekend) || !inRange(localHour, b.getStartHour(), b.getEndHour())) continue;
+      // una franja específica (WEEKDAY/WEEKEND) gana sobre ALL
+      if (match == null || ("ALL".equals(match.getDays()) && !"ALL".equals(b.getDays()))) match = b;
+    }
+    if (match != null) return new Rate(match.getName(), match.getPricePerKwh());
+    if (t.getPeakStart() == null || t.getPeakEnd() == null) return new Rate("FLAT", t.getPricePerKwh());
+    return new Rate(inRange(localHour, t.getPeakStart(), t.getPeakEnd()) ? "PEAK" : "OFF_PEAK", t.getPricePerKwh());
+  }
+
+  public static boolean inRange(int hour, Integer start, Integer end) {
+    if (start == null || end == null) return false;
+    if (start.equals(end)) return true; // todo el día
+    if (start < end) { // [start, end)
+      return hour >= start && hour < end;
+    }
+    // Cruza medianoche (ej: 21–6)
+    return hour >= start || hour < end;
+  }
+
+  private static boolean appliesTo(String days, boolean weekend) {
+    if (days == null || "ALL".equalsIgnoreCase(days)) return true;
+    return weekend ? "WEEKEND".equalsIgnoreCase(days) : "WEEKDAY".equalsIgnoreCase(days);
+  }
+}
@@ -0,0 +1,59 @@
+-- Esquema original de LuminAV (el que generaba ddl-auto=update antes de las migraciones).
+-- Bases existentes: spring.flyway.baseline-on-migrate=true las marca en V1 sin ejecutar este script
+-- y V2 en adelante agrega lo que falte.
+
+CREATE TABLE users (
+  id            BIGINT       NOT NULL AUTO_INCREMENT,
+  username      VARCHAR(255) NOT NULL,
+  email         VARCHAR(255) NOT NULL,
+  full_name     VARCHAR(255) NOT NULL,
+  password_hash VARCHAR(255) NOT NULL,
+  role          VARCHAR(255) NOT NULL,
+  created_at    DATETIME(6)  NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_users_username UNIQUE (username),
+  CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE device (
+  id         BIGINT       NOT NULL AUTO_INCREMENT,
+  name       VARCHAR(255) NOT NULL,
+  type       VARCHAR(255),
+  watt       INT,
+  location   VARCHAR(255),
+  owner_id   BIGINT       NOT NULL,
+  created_at DATETIME(6)  NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_device_owner FOREIGN KEY (owner_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE reading (
+  id          BIGINT      NOT NULL AUTO_INCREMENT,
+  device_id   BIGINT      NOT NULL,
+  watt        INT         NOT NULL,
+  minutes     INT         NOT NULL,
+  recorded_at DATETIME(6) NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_reading_device FOREIGN KEY (device_id) REFERENCES device (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE tariff (
+  id            BIGINT NOT NULL AUTO_INCREMENT,
+  owner_id      BIGINT NOT NULL,
+  price_per_kwh DOUBLE NOT NULL,
+  peak_start    INT,
+  peak_end      INT,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_tariff_owner FOREIGN KEY (owner_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE recommendation (
+  id         BIGINT       NOT NULL AUTO_INCREMENT,
+  owner_id   BIGINT       NOT NULL,
+  message    VARCHAR(500) NOT NULL,
+  level      VARCHAR(16)  NOT NULL,
+  status     VARCHAR(16)  NOT NULL,
+  created_at DATETIME(6)  NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_recommendation_owner FOREIGN KEY (owner_id) REFERENCES users (id)
+) ENGINE=InnoDB;
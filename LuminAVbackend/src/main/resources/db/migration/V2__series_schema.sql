@@ -0,0 +1,60 @@
+-- Tombstones, franjas TOU, rollups horarios, borrado asíncrono e índice natural de lecturas.
+-- Idempotente (IF NOT EXISTS de MariaDB): una base que ya corrió alguna de estas versiones con
+-- ddl-auto=update tiene parte de estos objetos y el script solo agrega lo que falta.
+
+ALTER TABLE device ADD COLUMN IF NOT EXISTS deleted_at DATETIME(6);
+
+ALTER TABLE recommendation ADD COLUMN IF NOT EXISTS device_id BIGINT;
+ALTER TABLE recommendation
+  ADD CONSTRAINT fk_recommendation_device FOREIGN KEY IF NOT EXISTS (device_id) REFERENCES device (id);
+
+CREATE TABLE IF NOT EXISTS tariff_band (
+  id            BIGINT      NOT NULL AUTO_INCREMENT,
+  tariff_id     BIGINT      NOT NULL,
+  name          VARCHAR(16) NOT NULL,
+  days          VARCHAR(8)  NOT NULL,
+  start_hour    INT         NOT NULL,
+  end_hour      INT         NOT NULL,
+  price_per_kwh DOUBLE      NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_tariff_band_tariff FOREIGN KEY (tariff_id) REFERENCES tariff (id)
+) ENGINE=InnoDB;
+
+-- Sin FK a device/users: se borra y recalcula por lotes
+CREATE TABLE IF NOT EXISTS hourly_rollup (
+  id           BIGINT      NOT NULL AUTO_INCREMENT,
+  owner_id     BIGINT      NOT NULL,
+  device_id    BIGINT      NOT NULL,
+  bucket_start DATETIME(6) NOT NULL,
+  kwh          DOUBLE      NOT NULL,
+  samples      INT         NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_rollup_device_bucket UNIQUE (device_id, bucket_start)
+) ENGINE=InnoDB;
+
+-- Costo y franja se agregaron después de la tabla: una base intermedia puede tenerla sin ellas
+ALTER TABLE hourly_rollup
+  ADD COLUMN IF NOT EXISTS cost       DOUBLE      NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS band       VARCHAR(16) NOT NULL DEFAULT 'FLAT',
+  ADD COLUMN IF NOT EXISTS local_hour INT         NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS weekend    BIT         NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS idx_rollup_owner_bucket ON hourly_rollup (owner_id, bucket_start);
+
+CREATE TABLE IF NOT EXISTS device_deletion_job (
+  id               BIGINT       NOT NULL AUTO_INCREMENT,
+  device_id        BIGINT       NOT NULL,
+  owner_id         BIGINT       NOT NULL,
+  status           VARCHAR(16)  NOT NULL,
+  deleted_readings BIGINT       NOT NULL,
+  error            VARCHAR(500),
+  created_at       DATETIME(6)  NOT NULL,
+  finished_at      DATETIME(6),
+  PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- Antes del índice único: sin él la base pudo acumular reintentos repetidos (se conserva el primero)
+DELETE r1 FROM reading r1
+  JOIN reading r2 ON r1.device_id = r2.device_id AND r1.recorded_at = r2.recorded_at AND r1.id > r2.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_reading_device_recorded ON reading (device_id, recorded_at);
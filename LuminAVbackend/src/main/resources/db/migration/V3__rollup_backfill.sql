@@ -0,0 +1,8 @@
+-- Avance del backfill de hourly_rollup por owner (RollupService.backfill)
+CREATE TABLE IF NOT EXISTS rollup_backfill (
+  owner_id        BIGINT      NOT NULL,
+  backfilled_from DATETIME(6) NOT NULL,
+  floor_hour      DATETIME(6),
+  finished_at     DATETIME(6),
+  PRIMARY KEY (owner_id)
+) ENGINE=InnoDB;
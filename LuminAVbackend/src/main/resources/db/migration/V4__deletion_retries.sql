@@ -0,0 +1,6 @@
+-- Reintentos del purgado de dispositivos (DeviceDeletionService): un fallo vuelve a PENDING con espera creciente
+ALTER TABLE device_deletion_job ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE device_deletion_job ADD COLUMN IF NOT EXISTS next_attempt_at DATETIME(6);
+
+-- Antes un FAILED era definitivo y el dispositivo quedaba con tombstone para siempre: se reintentan
+UPDATE device_deletion_job SET status = 'PENDING', finished_at = NULL WHERE status = 'FAILED';
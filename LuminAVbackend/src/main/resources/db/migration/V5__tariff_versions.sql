@@ -0,0 +1,5 @@
+-- Versiones de tarifa: cada fila rige desde effective_from hasta la siguiente versión del mismo owner.
+-- Las tarifas existentes se tarifaban sobre todo el histórico: rigen desde siempre.
+ALTER TABLE tariff ADD COLUMN IF NOT EXISTS effective_from DATETIME(6) NOT NULL DEFAULT '1970-01-01 00:00:00';
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_tariff_owner_from ON tariff (owner_id, effective_from);
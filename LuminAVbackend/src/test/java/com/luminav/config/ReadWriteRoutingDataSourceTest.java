@@ -0,0 +1,59 @@
+package com.luminav.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dos instancias H2 locales (primario y réplica) para verificar el enrutamiento.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+  private static DataSource h2(String url) {
+    JdbcDataSource ds = new JdbcDataSource();
+    ds.setURL(url);
+    ds.setUser("sa");
+    return ds;
+  }
+
+  private static String databaseName(DataSource ds, boolean readOnly) {
+    TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(ds));
+    tx.setReadOnly(readOnly);
+    return tx.execute(s -> new JdbcTemplate(ds).queryForObject("SELECT DATABASE()", String.class));
+  }
+
+  @Test
+  void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+    ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+        h2("jdbc:h2:mem:rw_primary;DB_CLOSE_DELAY=-1"),
+        Map.of("replica-0", h2("jdbc:h2:mem:rw_replica;DB_CLOSE_DELAY=-1")));
+    DataSource ds = new LazyConnectionDataSourceProxy(routing);
+
+    assertEquals("RW_REPLICA", databaseName(ds, true).toUpperCase());
+    assertEquals("RW_PRIMARY", databaseName(ds, false).toUpperCase());
+  }
+
+  @Test
+  void unreachableReplicaFailsOverToPrimary() {
+    // IFEXISTS=TRUE sobre una BD en memoria inexistente -> getConnection falla
+    ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+        h2("jdbc:h2:mem:fo_primary;DB_CLOSE_DELAY=-1"),
+        Map.of("replica-0", h2("jdbc:h2:mem:fo_missing;IFEXISTS=TRUE")));
+    DataSource ds = new LazyConnectionDataSourceProxy(routing);
+
+    assertEquals("FO_PRIMARY", databaseName(ds, true).toUpperCase());
+    assertTrue(routing.unhealthyReplicas().contains("replica-0"));
+
+    routing.checkReplicas(1);
+    assertTrue(routing.unhealthyReplicas().contains("replica-0"));
+  }
+}
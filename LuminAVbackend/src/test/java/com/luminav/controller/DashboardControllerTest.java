@@ -0,0 +1,25 @@
+package com.luminav.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DashboardControllerTest {
+
+  private static final Instant FROM = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Test
+  void maxPointsBelowThreeIsABadRequest() {
+    DashboardController controller = new DashboardController(null); // se rechaza antes de llegar al servicio
+    // 1 y 2: LTTB devolvería 3 puntos, más de los pedidos
+    for (int maxPoints : new int[]{2, 1, 0, -1, Integer.MIN_VALUE}) {
+      ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+          () -> controller.summary(1L, FROM, FROM.plusSeconds(3600), maxPoints));
+      assertEquals(400, ex.getStatusCode().value());
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package com.luminav.controller;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.Reading;
+import com.luminav.entity.Recommendation;
+import com.luminav.entity.Tariff;
+import com.luminav.entity.TariffBand;
+import com.luminav.entity.User;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.RecommendationRepository;
+import com.luminav.repository.TariffRepository;
+import com.luminav.repository.UserRepository;
+import com.luminav.security.TokenService;
+import com.luminav.service.LiveDeviceRegistry;
+import com.luminav.service.TariffPricing;
+import com.luminav.support.QueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Número exacto de sentencias SQL por endpoint: un N+1 (asociación EAGER, proxy inicializado al serializar)
+ * cambia el conteo y rompe el build. Si un cambio agrega una consulta a propósito, actualizar el número aquí.
+ */
+@ActiveProfiles("loadtest")
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.luminav.support.QueryCounter",
+    "app.rollup.bootstrap-hours=0"
+})
+class QueryCountTest {
+
+  private static final int DEVICES = 3;
+  private static final int READINGS_PER_DEVICE = 10;
+
+  @Autowired private MockMvc mvc;
+  @Autowired private TokenService tokens;
+  @Autowired private UserRepository users;
+  @Autowired private DeviceRepository devices;
+  @Autowired private ReadingRepository readings;
+  @Autowired private TariffRepository tariffs;
+  @Autowired private RecommendationRepository recos;
+  @Autowired private LiveDeviceRegistry liveRegistry;
+
+  private String token;
+  private final List<Long> deviceIds = new ArrayList<>();
+  private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+  @BeforeEach
+  void seed() {
+    User u = new User();
+    String email = "qc-" + UUID.randomUUID() + "@luminav.test";
+    u.setUsername(email); u.setEmail(email); u.setFullName("Query Count");
+    u.setPasswordHash("x"); u.setRole("RESIDENT");
+    u = users.save(u);
+    token = "Bearer " + tokens.issue(u.getId()).token();
+
+    for (int d = 0; d < DEVICES; d++) {
+      Device dev = new Device();
+      dev.setName("Dev " + d); dev.setType("TV"); dev.setWatt(100); dev.setOwner(u);
+      dev = devices.save(dev);
+      deviceIds.add(dev.getId());
+      List<Reading> rs = new ArrayList<>();
+      for (int i = 0; i < READINGS_PER_DEVICE; i++) {
+        Reading r = new Reading();
+        r.setDevice(dev); r.setWatt(90 + i); r.setMinutes(1);
+        r.setRecordedAt(now.minus(i + 1L, ChronoUnit.MINUTES));
+        rs.add(r);
+      }
+      readings.saveAll(rs);
+
+      Recommendation reco = new Recommendation();
+      reco.setOwner(u); reco.setDevice(dev); reco.setLevel("INFO"); reco.setMessage("m" + d);
+      recos.save(reco);
+    }
+
+    Tariff t = new Tariff();
+    t.setOwner(u); t.setPricePerKwh(650);
+    for (int h : new int[]{0, 18}) {
+      TariffBand b = new TariffBand();
+      b.setTariff(t); b.setName(h == 0 ? "OFF_PEAK" : "PEAK"); b.setStartHour(h); b.setEndHour(h == 0 ? 6 : 22);
+      b.setPricePerKwh(h == 0 ? 500 : 900);
+      t.getBands().add(b);
+    }
+    tariffs.save(t);
+  }
+
+  private Reading reading(Long deviceId, Instant at, int watt) {
+    Reading r = new Reading();
+    r.setDevice(devices.findById(deviceId).orElseThrow()); r.setWatt(watt); r.setMinutes(60); r.setRecordedAt(at);
+    return r;
+  }
+
+  private int statements(RequestBuilder request) throws Exception {
+    QueryCounter.reset();
+    mvc.perform(request).andExpect(status().isOk());
+    return QueryCounter.count();
+  }
+
+  @Test
+  void deviceList() throws Exception {
+    assertEquals(1, statements(get("/api/devices").header("Authorization", token)));
+  }
+
+  @Test
+  void liveStateIsServedFromMemory() throws Exception {
+    // la semilla escribe directo en la base, como la historia previa a un reinicio: reconstruir igual que al arrancar
+    liveRegistry.rebuild();
+    Instant midnight = LocalDate.ofInstant(now, TariffPricing.ZONE).atStartOfDay(TariffPricing.ZONE).toInstant();
+    double wattMinutes = 0;
+    for (int i = 0; i < READINGS_PER_DEVICE; i++) {
+      if (!now.minus(i + 1L, ChronoUnit.MINUTES).isBefore(midnight)) wattMinutes += 90 + i;
+    }
+    double todayKwh = Math.round(wattMinutes / 60_000.0 * 1000.0) / 1000.0;
+
+    QueryCounter.reset();
+    mvc.perform(get("/api/devices/live").header("Authorization", token))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(DEVICES))
+        .andExpect(jsonPath("$[0].deviceId").value(deviceIds.get(0)))
+        .andExpect(jsonPath("$[0].status").value("ONLINE"))
+        .andExpect(jsonPath("$[0].watt").value(90))
+        .andExpect(jsonPath("$[0].todayKwh").value(todayKwh));
+    assertEquals(0, QueryCounter.count());
+  }
+
+  @Test
+  void readingListFetchesDevicesInTheSameQuery() throws Exception {
+    String range = "?from=" + now.minus(1, ChronoUnit.DAYS) + "&to=" + now;
+    QueryCounter.reset();
+    mvc.perform(get("/api/readings" + range).header("Authorization", token))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(DEVICES * READINGS_PER_DEVICE))
+        .andExpect(jsonPath("$[0].device.name").exists())
+        .andExpect(jsonPath("$[0].device.owner").doesNotExist());
+    assertEquals(1, QueryCounter.count());
+
+    assertEquals(1, statements(get("/api/readings" + range + "&deviceId=" + deviceIds.get(0))
+        .header("Authorization", token)));
+  }
+
+  @Test
+  void tariffWithBands() throws Exception {
+    assertEquals(1, statements(get("/api/tariff").header("Authorization", token)));
+  }
+
+  @Test
+  void recommendations() throws Exception {
+    assertEquals(1, statements(get("/api/recommendations?limit=20").header("Authorization", token)));
+  }
+
+  @Test
+  void dashboardSummaryReadsRollupsPlusTheHoursWithoutOne() throws Exception {
+    readings.save(reading(deviceIds.get(0), now, 1200)); // hora en curso, aún sin rollup
+    String range = "?from=" + now.minus(1, ChronoUnit.DAYS) + "&to=" + now.plusSeconds(1);
+    QueryCounter.reset();
+    mvc.perform(get("/api/dashboard/summary" + range).header("Authorization", token))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalKwh").value(greaterThanOrEqualTo(1.2)));
+    // serie por hora + franjas + top (rollups) + lecturas de los bordes/hora en curso + tarifa
+    assertEquals(5, QueryCounter.count());
+  }
+
+  @Test
+  void forecast() throws Exception {
+    assertEquals(1, statements(get("/api/forecast/hourly?days=7").header("Authorization", token)));
+  }
+
+  @Test
+  void bulkIngestLooksUpEachDeviceOnce() throws Exception {
+    StringBuilder body = new StringBuilder("{\"readings\":[");
+    int n = 0;
+    for (Long id : deviceIds.subList(0, 2)) {
+      for (int i = 0; i < 2; i++) {
+        if (n++ > 0) body.append(',');
+        body.append("{\"deviceId\":").append(id).append(",\"watt\":100,\"minutes\":1,\"recordedAt\":\"")
+            .append(now.plus(i + 1L, ChronoUnit.SECONDS)).append("\"}");
+      }
+    }
+    body.append("]}");
+    // 2 dispositivos distintos + 4 inserts (IDENTITY: uno por fila)
+    assertEquals(2 + 4, statements(post("/api/readings/bulk").contentType(MediaType.APPLICATION_JSON)
+        .content(body.toString())));
+  }
+}
@@ -0,0 +1,53 @@
+package com.luminav.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luminav.service.RecommendationAgent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba end-to-end de throughput (línea base de regresión).
+ * Corre con: mvn -Pperf test  — el reporte queda en target/load-report.json
+ */
+@Tag("perf")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadSimulationTest {
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private RecommendationAgent agent;
+
+  @Autowired
+  private ObjectMapper json;
+
+  @Test
+  void sustainsIngestAndAnalyticsLoad() throws Exception {
+    LoadSimulator.Config cfg = LoadSimulator.Config.fromSystemProperties();
+    LoadSimulator sim = new LoadSimulator("http://localhost:" + port, cfg, json);
+    sim.setup();
+
+    LoadSimulator.Report report = sim.run();
+
+    long t0 = System.nanoTime();
+    agent.scheduledRun();
+    report.agentRunMillis = (System.nanoTime() - t0) / 1_000_000;
+
+    report.print(System.out);
+    report.write(Path.of("target", "load-report.json"), json);
+
+    assertTrue(report.readingsSent > 0, "no se enviaron lecturas");
+    assertEquals(0, report.totalErrors(), "hubo requests con error");
+  }
+}
@@ -0,0 +1,268 @@
+package com.luminav.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de carga sintética contra el API real.
+ * Crea N owners con M dispositivos (AuthController/DeviceController), luego envía
+ * lecturas a /api/readings y /api/readings/bulk a un ritmo objetivo mientras consulta
+ * dashboard, forecast y recomendaciones.
+ *
+ * Parámetros (system properties):
+ *   load.owners=5  load.devicesPerOwner=4  load.readingsPerSecond=500
+ *   load.durationSeconds=30  load.bulkSize=50  load.bulkRatio=0.8
+ *   load.pollsPerSecond=10  load.clients=16
+ */
+public class LoadSimulator {
+
+  public static class Config {
+    public int owners;
+    public int devicesPerOwner;
+    public int readingsPerSecond;
+    public int durationSeconds;
+    public int bulkSize;
+    public double bulkRatio;
+    public int pollsPerSecond;
+    public int clients;
+
+    public static Config fromSystemProperties() {
+      Config c = new Config();
+      c.owners = Integer.getInteger("load.owners", 5);
+      c.devicesPerOwner = Integer.getInteger("load.devicesPerOwner", 4);
+      c.readingsPerSecond = Integer.getInteger("load.readingsPerSecond", 500);
+      c.durationSeconds = Integer.getInteger("load.durationSeconds", 30);
+      c.bulkSize = Integer.getInteger("load.bulkSize", 50);
+      c.bulkRatio = Double.parseDouble(System.getProperty("load.bulkRatio", "0.8"));
+      c.pollsPerSecond = Integer.getInteger("load.pollsPerSecond", 10);
+      c.clients = Integer.getInteger("load.clients", 16);
+      return c;
+    }
+  }
+
+  /** Dispositivo simulado: id real del backend y potencia nominal para generar valores creíbles */
+  record SimDevice(long ownerId, long deviceId, int ratedWatt) {}
+
+  /** Owner registrado con su token de sesión */
+  record SimOwner(long ownerId, String token) {}
+
+  public static class EndpointStats {
+    public long requests;
+    public long errors;
+    public double p50Ms;
+    public double p99Ms;
+    public double maxMs;
+  }
+
+  public static class Report {
+    public Config config;
+    public long readingsSent;
+    public double ingestReadingsPerSecond;
+    public long agentRunMillis;
+    public Map<String, EndpointStats> endpoints = new TreeMap<>();
+
+    public long totalErrors() {
+      return endpoints.values().stream().mapToLong(e -> e.errors).sum();
+    }
+
+    public void print(PrintStream out) {
+      out.printf("== LuminAV load report (%d owners x %d devices, target %d readings/s) ==%n",
+          config.owners, config.devicesPerOwner, config.readingsPerSecond);
+      out.printf("ingest: %d readings, %.1f readings/s%n", readingsSent, ingestReadingsPerSecond);
+      out.printf("agent run: %d ms%n", agentRunMillis);
+      out.printf("%-28s %8s %7s %9s %9s %9s%n", "endpoint", "requests", "errors", "p50 ms", "p99 ms", "max ms");
+      endpoints.forEach((k, e) -> out.printf("%-28s %8d %7d %9.2f %9.2f %9.2f%n",
+          k, e.requests, e.errors, e.p50Ms, e.p99Ms, e.maxMs));
+    }
+
+    public void write(Path file, ObjectMapper json) throws IOException {
+      Files.createDirectories(file.getParent());
+      json.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), this);
+    }
+  }
+
+  private final String baseUrl;
+  private final Config cfg;
+  private final ObjectMapper json;
+  private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+  private final List<SimDevice> devices = new ArrayList<>();
+  private final List<SimOwner> owners = new ArrayList<>();
+  private final Map<String, List<Long>> latenciesNanos = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+  private final AtomicLong readingsSent = new AtomicLong();
+
+  public LoadSimulator(String baseUrl, Config cfg, ObjectMapper json) {
+    this.baseUrl = baseUrl;
+    this.cfg = cfg;
+    this.json = json;
+  }
+
+  /** Registra owners y crea sus dispositivos a través del API */
+  public void setup() throws Exception {
+    String[][] catalog = {
+        {"Nevera", "Nevera", "150"}, {"Lavadora", "Lavadora", "500"},
+        {"TV", "TV", "120"}, {"Aire", "Aire acondicionado", "1200"},
+        {"Ducha", "Ducha eléctrica", "3500"}, {"PC", "Computador", "300"}
+    };
+    String run = Long.toString(System.currentTimeMillis(), 36);
+    for (int o = 0; o < cfg.owners; o++) {
+      String email = "load-" + run + "-" + o + "@luminav.test";
+      JsonNode reg = send("auth/register", post("/api/auth/register",
+          Map.of("fullName", "Load Owner " + o, "email", email, "password", "Load#" + o)));
+      long ownerId = reg.get("id").asLong();
+      JsonNode login = send("auth/login", post("/api/auth/login", Map.of("email", email, "password", "Load#" + o)));
+      SimOwner owner = new SimOwner(ownerId, login.get("token").asText());
+      owners.add(owner);
+
+      for (int d = 0; d < cfg.devicesPerOwner; d++) {
+        String[] c = catalog[d % catalog.length];
+        Map<String, Object> body = Map.of("name", c[0] + " " + d, "type", c[1],
+            "watt", Integer.parseInt(c[2]), "location", "sala");
+        JsonNode dev = send("devices/create", post("/api/devices", body).header("Authorization", "Bearer " + owner.token()));
+        devices.add(new SimDevice(ownerId, dev.get("id").asLong(), Integer.parseInt(c[2])));
+      }
+    }
+  }
+
+  /** Corre la carga durante durationSeconds y construye el reporte (sin el tiempo del agente) */
+  public Report run() throws Exception {
+    ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, cfg.clients));
+    ScheduledExecutorService pacer = Executors.newScheduledThreadPool(2);
+
+    // lecturas por request (mezcla de individuales y bulk) -> requests/s necesarios
+    double readingsPerRequest = cfg.bulkRatio * cfg.bulkSize + (1 - cfg.bulkRatio);
+    double ingestRps = Math.max(1.0, cfg.readingsPerSecond / readingsPerRequest);
+    long ingestPeriodNanos = (long) (1_000_000_000L / ingestRps);
+    long pollPeriodNanos = 1_000_000_000L / Math.max(1, cfg.pollsPerSecond);
+
+    long start = System.nanoTime();
+    pacer.scheduleAtFixedRate(() -> workers.execute(this::ingestOnce), 0, ingestPeriodNanos, TimeUnit.NANOSECONDS);
+    pacer.scheduleAtFixedRate(() -> workers.execute(this::pollOnce), 0, pollPeriodNanos, TimeUnit.NANOSECONDS);
+
+    Thread.sleep(cfg.durationSeconds * 1000L);
+    pacer.shutdownNow();
+    workers.shutdown();
+    workers.awaitTermination(30, TimeUnit.SECONDS);
+    double elapsedSec = (System.nanoTime() - start) / 1e9;
+
+    Report r = new Report();
+    r.config = cfg;
+    r.readingsSent = readingsSent.get();
+    r.ingestReadingsPerSecond = r.readingsSent / elapsedSec;
+    for (Map.Entry<String, List<Long>> e : latenciesNanos.entrySet()) {
+      r.endpoints.put(e.getKey(), stats(e.getValue(), errors.getOrDefault(e.getKey(), new AtomicLong()).get()));
+    }
+    return r;
+  }
+
+  private void ingestOnce() {
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    try {
+      if (rnd.nextDouble() < cfg.bulkRatio) {
+        List<Map<String, Object>> batch = new ArrayList<>(cfg.bulkSize);
+        for (int i = 0; i < cfg.bulkSize; i++) batch.add(reading(rnd));
+        send("readings/bulk", post("/api/readings/bulk", Map.of("readings", batch)));
+        readingsSent.addAndGet(batch.size());
+      } else {
+        send("readings", post("/api/readings", reading(rnd)));
+        readingsSent.incrementAndGet();
+      }
+    } catch (Exception ignored) {
+      // ya contabilizado en errors
+    }
+  }
+
+  private void pollOnce() {
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    SimOwner owner = owners.get(rnd.nextInt(owners.size()));
+    Instant to = Instant.now();
+    Instant from = to.minus(Duration.ofDays(1));
+    try {
+      switch (rnd.nextInt(3)) {
+        case 0 -> send("dashboard/summary", get("/api/dashboard/summary?from=" + from + "&to=" + to, owner));
+        case 1 -> send("forecast/hourly", get("/api/forecast/hourly?days=7", owner));
+        default -> send("recommendations", get("/api/recommendations?limit=20", owner));
+      }
+    } catch (Exception ignored) {
+      // ya contabilizado en errors
+    }
+  }
+
+  // Lectura de un minuto con ruido alrededor de la potencia nominal del dispositivo
+  private Map<String, Object> reading(ThreadLocalRandom rnd) {
+    SimDevice d = devices.get(rnd.nextInt(devices.size()));
+    int watt = (int) Math.max(0, d.ratedWatt() * (0.6 + rnd.nextDouble() * 0.6));
+    Map<String, Object> m = new HashMap<>();
+    m.put("deviceId", d.deviceId());
+    m.put("watt", watt);
+    m.put("minutes", 1);
+    m.put("recordedAt", Instant.now().minusMillis(rnd.nextInt(60_000)).toString());
+    return m;
+  }
+
+  private HttpRequest.Builder post(String path, Object body) throws IOException {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body)));
+  }
+
+  private HttpRequest.Builder get(String path, SimOwner owner) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .header("Authorization", "Bearer " + owner.token())
+        .GET();
+  }
+
+  private JsonNode send(String endpoint, HttpRequest.Builder req) throws Exception {
+    long t0 = System.nanoTime();
+    HttpResponse<byte[]> res;
+    try {
+      res = http.send(req.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofByteArray());
+    } catch (Exception ex) {
+      errors.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+      throw ex;
+    } finally {
+      latenciesNanos.computeIfAbsent(endpoint, k -> Collections.synchronizedList(new ArrayList<>()))
+          .add(System.nanoTime() - t0);
+    }
+    if (res.statusCode() >= 400) {
+      errors.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+      throw new IllegalStateException(endpoint + " -> HTTP " + res.statusCode());
+    }
+    byte[] body = res.body();
+    return body == null || body.length == 0 ? null : json.readTree(body);
+  }
+
+  private static EndpointStats stats(List<Long> samples, long errorCount) {
+    long[] sorted;
+    synchronized (samples) {
+      sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+    EndpointStats s = new EndpointStats();
+    s.requests = sorted.length;
+    s.errors = errorCount;
+    if (sorted.length > 0) {
+      s.p50Ms = sorted[percentileIndex(sorted.length, 0.50)] / 1e6;
+      s.p99Ms = sorted[percentileIndex(sorted.length, 0.99)] / 1e6;
+      s.maxMs = sorted[sorted.length - 1] / 1e6;
+    }
+    return s;
+  }
+
+  private static int percentileIndex(int n, double p) {
+    return Math.max(0, Math.min(n - 1, (int) Math.ceil(p * n) - 1));
+  }
+}
@@ -0,0 +1,56 @@
+package com.luminav.load;
+
+import com.luminav.LuminAvBackendApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tiempo de arranque (hasta contexto listo) con y sin lazy-initialization, sobre H2.
+ * Corre con: mvn -Pperf test -Dtest=StartupBenchmarkTest -Dstartup.runs=5
+ * La primera corrida calienta la JVM y no se cuenta.
+ */
+@Tag("perf")
+class StartupBenchmarkTest {
+
+  @Test
+  void startupTimeWithAndWithoutLazyInit() {
+    int runs = Integer.getInteger("startup.runs", 3);
+    long maxMillis = Long.getLong("startup.maxMillis", 30_000);
+
+    start(false, 0);
+    Map<String, Long> medians = new LinkedHashMap<>();
+    for (boolean lazy : new boolean[]{false, true}) {
+      long[] samples = new long[runs];
+      for (int i = 0; i < runs; i++) samples[i] = start(lazy, i + 1);
+      Arrays.sort(samples);
+      medians.put(lazy ? "lazy" : "eager", samples[runs / 2]);
+    }
+
+    System.out.printf("== LuminAV startup (median of %d) ==%n", runs);
+    medians.forEach((k, v) -> System.out.printf("%-6s %6d ms%n", k, v));
+    medians.forEach((k, v) -> assertTrue(v < maxMillis, k + " tardó " + v + " ms"));
+  }
+
+  private static long start(boolean lazy, int run) {
+    long t0 = System.nanoTime();
+    try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(LuminAvBackendApplication.class)
+        .profiles("loadtest")
+        .properties(
+            "server.port=0",
+            "spring.main.lazy-initialization=" + lazy,
+            // BD nueva por corrida: cada arranque crea el esquema desde cero
+            "spring.datasource.url=jdbc:h2:mem:startup_" + lazy + "_" + run + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE",
+            "app.rollup.bootstrap-hours=0")
+        .run()) {
+      return (System.nanoTime() - t0) / 1_000_000;
+    }
+  }
+}
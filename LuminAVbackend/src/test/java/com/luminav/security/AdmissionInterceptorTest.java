@@ -0,0 +1,124 @@
+package com.luminav.security;
+
+import com.luminav.config.AdmissionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static com.luminav.security.AdmissionInterceptor.EndpointClass.ANALYTICS;
+import static com.luminav.security.AdmissionInterceptor.EndpointClass.INGEST;
+import static com.luminav.security.AdmissionInterceptor.EndpointClass.OTHER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionInterceptorTest {
+
+  private final TokenService tokens = new TokenService("secreto-de-prueba", 60, 100);
+  private final SimpleMeterRegistry metrics = new SimpleMeterRegistry();
+
+  private static MockHttpServletRequest request(String method, String uri, String remoteAddr) {
+    MockHttpServletRequest r = new MockHttpServletRequest(method, uri);
+    r.setRemoteAddr(remoteAddr);
+    return r;
+  }
+
+  private AdmissionInterceptor interceptor(int ingestBurst, int maxTenants) {
+    AdmissionProperties props = new AdmissionProperties();
+    props.getIngest().setRatePerSecond(0.001);
+    props.getIngest().setBurst(ingestBurst);
+    props.setMaxTenants(maxTenants);
+    return new AdmissionInterceptor(props, tokens, null, metrics);
+  }
+
+  @Test
+  void classifiesByPathAndMethod() {
+    assertEquals(INGEST, AdmissionInterceptor.classify(request("POST", "/api/readings/bulk", "10.0.0.1")));
+    assertEquals(ANALYTICS, AdmissionInterceptor.classify(request("GET", "/api/readings", "10.0.0.1")));
+    assertEquals(ANALYTICS, AdmissionInterceptor.classify(request("GET", "/api/dashboard/summary", "10.0.0.1")));
+    assertEquals(ANALYTICS, AdmissionInterceptor.classify(request("GET", "/api/forecast", "10.0.0.1")));
+    assertEquals(ANALYTICS, AdmissionInterceptor.classify(request("GET", "/api/recommendations", "10.0.0.1")));
+    assertEquals(OTHER, AdmissionInterceptor.classify(request("POST", "/api/recommendations/run", "10.0.0.1")));
+    assertEquals(OTHER, AdmissionInterceptor.classify(request("GET", "/api/devices", "10.0.0.1")));
+
+    MockHttpServletRequest withContext = request("GET", "/luminav/api/dashboard/summary", "10.0.0.1");
+    withContext.setContextPath("/luminav");
+    assertEquals(ANALYTICS, AdmissionInterceptor.classify(withContext));
+  }
+
+  @Test
+  void rotatingGatewayHeaderDoesNotEscapeTheLimit() throws Exception {
+    AdmissionInterceptor interceptor = interceptor(2, 1000);
+    for (int i = 0; i < 2; i++) {
+      MockHttpServletRequest r = request("POST", "/api/readings/bulk", "10.0.0.7");
+      r.addHeader("X-Gateway-Id", "gw-" + i);
+      assertTrue(interceptor.preHandle(r, new MockHttpServletResponse(), null));
+    }
+    MockHttpServletRequest third = request("POST", "/api/readings/bulk", "10.0.0.7");
+    third.addHeader("X-Gateway-Id", "gw-nuevo");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(third, response, null));
+    assertEquals(429, response.getStatus());
+    assertNotNull(response.getHeader("Retry-After"));
+    assertEquals(1.0, metrics.get("luminav.admission.rejected")
+        .tag("endpoint", "INGEST").tag("reason", "rate").counter().count());
+
+    // otra IP tiene su propio bucket
+    assertTrue(interceptor.preHandle(request("POST", "/api/readings/bulk", "10.0.0.8"), new MockHttpServletResponse(), null));
+  }
+
+  @Test
+  void verifiedTokenIsTheTenantAndInvalidTokenFallsBackToIp() throws Exception {
+    AdmissionInterceptor interceptor = interceptor(1, 1000);
+    String token = tokens.issue(42).token();
+
+    MockHttpServletRequest fromA = request("POST", "/api/readings/bulk", "10.0.0.1");
+    fromA.addHeader("Authorization", "Bearer " + token);
+    assertTrue(interceptor.preHandle(fromA, new MockHttpServletResponse(), null));
+    // mismo owner desde otra IP: mismo bucket
+    MockHttpServletRequest fromB = request("POST", "/api/readings/bulk", "10.0.0.2");
+    fromB.addHeader("Authorization", "Bearer " + token);
+    assertFalse(interceptor.preHandle(fromB, new MockHttpServletResponse(), null));
+
+    // token falso: cuenta contra la IP, no contra el owner que dice ser
+    MockHttpServletRequest forged = request("POST", "/api/readings/bulk", "10.0.0.2");
+    forged.addHeader("Authorization", "Bearer 42.9999999999.firma");
+    assertTrue(interceptor.preHandle(forged, new MockHttpServletResponse(), null));
+  }
+
+  @Test
+  void bucketsAreEvictedLeastRecentlyUsedFirst() {
+    AdmissionInterceptor interceptor = interceptor(5, 2);
+    TokenBucket a = interceptor.bucket(INGEST, "ip:a");
+    TokenBucket b = interceptor.bucket(INGEST, "ip:b");
+    assertSame(a, interceptor.bucket(INGEST, "ip:a")); // a pasa a ser el más reciente
+    interceptor.bucket(INGEST, "ip:c");               // sale b, no todos
+
+    assertEquals(2, interceptor.tenantCount());
+    assertSame(a, interceptor.bucket(INGEST, "ip:a"));
+    assertNotSame(b, interceptor.bucket(INGEST, "ip:b"));
+    assertEquals(2, interceptor.tenantCount());
+  }
+
+  @Test
+  void concurrencyPermitIsReleasedAfterCompletion() throws Exception {
+    AdmissionProperties props = new AdmissionProperties();
+    props.getAnalytics().setRatePerSecond(1000);
+    props.getAnalytics().setBurst(1000);
+    props.getAnalytics().setMaxConcurrent(1);
+    AdmissionInterceptor interceptor = new AdmissionInterceptor(props, tokens, null, metrics);
+
+    MockHttpServletRequest first = request("GET", "/api/dashboard/summary", "10.0.0.1");
+    assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+    MockHttpServletResponse busy = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("GET", "/api/dashboard/summary", "10.0.0.1"), busy, null));
+    assertEquals(503, busy.getStatus());
+
+    interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+    assertTrue(interceptor.preHandle(request("GET", "/api/dashboard/summary", "10.0.0.1"), new MockHttpServletResponse(), null));
+  }
+}
@@ -0,0 +1,83 @@
+package com.luminav.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CurrentOwnerArgumentResolverTest {
+
+  private final TokenService tokens = new TokenService("secreto-de-prueba", 60, 100);
+
+  @SuppressWarnings("unused")
+  void handler(@CurrentOwner Long ownerId, Long plain) {}
+
+  private static MethodParameter param(int index) throws NoSuchMethodException {
+    return new MethodParameter(CurrentOwnerArgumentResolverTest.class.getDeclaredMethod("handler", Long.class, Long.class), index);
+  }
+
+  private Object resolve(boolean allowOwnerParam, MockHttpServletRequest request) throws Exception {
+    return new CurrentOwnerArgumentResolver(tokens, allowOwnerParam)
+        .resolveArgument(param(0), null, new ServletWebRequest(request), null);
+  }
+
+  private static HttpStatus status(ResponseStatusException ex) {
+    return HttpStatus.valueOf(ex.getStatusCode().value());
+  }
+
+  @Test
+  void supportsOnlyAnnotatedLongParameters() throws Exception {
+    CurrentOwnerArgumentResolver resolver = new CurrentOwnerArgumentResolver(tokens, false);
+    assertTrue(resolver.supportsParameter(param(0)));
+    assertFalse(resolver.supportsParameter(param(1)));
+  }
+
+  @Test
+  void bearerTokenResolvesOwnerAndWinsOverOwnerParam() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("Authorization", "bearer " + tokens.issue(42).token());
+    request.setParameter("ownerId", "7");
+    assertEquals(42L, resolve(false, request));
+    assertEquals(42L, resolve(true, request));
+  }
+
+  @Test
+  void invalidTokenIsUnauthorizedEvenWithOwnerParamAllowed() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("Authorization", "Bearer 42.9999999999.firma");
+    request.setParameter("ownerId", "42");
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> resolve(true, request));
+    assertEquals(HttpStatus.UNAUTHORIZED, status(ex));
+  }
+
+  @Test
+  void ownerParamIsIgnoredWhenDisallowed() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setParameter("ownerId", "42");
+    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> resolve(false, request));
+    assertEquals(HttpStatus.UNAUTHORIZED, status(ex));
+  }
+
+  @Test
+  void ownerParamIsAcceptedWhenAllowed() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setParameter("ownerId", "42");
+    assertEquals(42L, resolve(true, request));
+
+    MockHttpServletRequest bad = new MockHttpServletRequest();
+    bad.setParameter("ownerId", "cuarenta");
+    assertEquals(HttpStatus.BAD_REQUEST,
+        status(assertThrows(ResponseStatusException.class, () -> resolve(true, bad))));
+
+    // sin token ni parámetro
+    assertEquals(HttpStatus.UNAUTHORIZED,
+        status(assertThrows(ResponseStatusException.class, () -> resolve(true, new MockHttpServletRequest()))));
+  }
+}
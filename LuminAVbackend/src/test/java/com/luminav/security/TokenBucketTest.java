@@ -0,0 +1,33 @@
+package com.luminav.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketTest {
+
+  @Test
+  void burstThenRefillAtConfiguredRate() {
+    AtomicLong now = new AtomicLong();
+    TokenBucket bucket = new TokenBucket(2, 3, now::get);
+
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(1, bucket.tryAcquire()); // vacío: a 2/s falta medio segundo -> Retry-After 1
+
+    now.addAndGet(500_000_000L);
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(1, bucket.tryAcquire());
+  }
+
+  @Test
+  void retryAfterReflectsSlowRates() {
+    AtomicLong now = new AtomicLong();
+    TokenBucket bucket = new TokenBucket(0.25, 1, now::get);
+    assertEquals(0, bucket.tryAcquire());
+    assertEquals(4, bucket.tryAcquire());
+  }
+}
@@ -0,0 +1,52 @@
+package com.luminav.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTest {
+
+  private final TokenService tokens = new TokenService("secreto-de-prueba", 60, 100);
+
+  @Test
+  void issuedTokenVerifiesToItsOwner() {
+    String token = tokens.issue(42).token();
+    assertEquals(Optional.of(42L), tokens.verify(token));
+    assertEquals(Optional.of(42L), tokens.verify(token)); // desde la caché
+  }
+
+  @Test
+  void tamperedSignatureOrPayloadIsRejected() {
+    String token = tokens.issue(42).token();
+    char last = token.charAt(token.length() - 1);
+    String badSignature = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+    assertTrue(tokens.verify(badSignature).isEmpty());
+
+    // cambiar el owner conserva la firma original: no debe validar
+    String otherOwner = "43" + token.substring(token.indexOf('.'));
+    assertTrue(tokens.verify(otherOwner).isEmpty());
+
+    // firmado con otro secreto
+    String foreign = new TokenService("otro-secreto", 60, 100).issue(42).token();
+    assertTrue(tokens.verify(foreign).isEmpty());
+  }
+
+  @Test
+  void expiredTokenIsRejected() {
+    TokenService shortLived = new TokenService("secreto-de-prueba", -1, 100);
+    String token = shortLived.issue(42).token();
+    assertTrue(shortLived.verify(token).isEmpty());
+    // la misma firma con el TTL normal: la expiración va dentro del payload firmado
+    assertTrue(tokens.verify(token).isEmpty());
+  }
+
+  @Test
+  void malformedTokensAreRejected() {
+    for (String t : new String[]{null, "", "  ", "abc", "42", "42.", ".42.x", "42.x.y", "x.1.y", "42..sig"}) {
+      assertTrue(tokens.verify(t).isEmpty(), "debió rechazar: " + t);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.luminav.service;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.User;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.HourlyRollupRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.UserRepository;
+import com.luminav.support.TestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:luminav_archive;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "app.rollup.bootstrap-hours=0",
+    "app.rollup.initial-delay-ms=3600000",
+    "app.rollup.backfill-initial-delay-ms=3600000",
+    "app.archive.enabled=true",
+    "app.archive.delete-batch-size=2"
+})
+class ArchiveServiceTest {
+
+  @TempDir
+  static Path archiveDir;
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("app.archive.dir", () -> archiveDir.toString());
+  }
+
+  private static final Instant H = Instant.parse("2025-01-15T10:00:00Z");
+
+  @Autowired private ArchiveService archiveService;
+  @Autowired private RollupService rollupService;
+  @Autowired private ReadingArchive archive;
+  @Autowired private UserRepository users;
+  @Autowired private DeviceRepository devices;
+  @Autowired private ReadingRepository readings;
+  @Autowired private HourlyRollupRepository rollups;
+  @Autowired private MeterRegistry metrics;
+
+  @Test
+  void movesClosedMonthAndDeletesExactlyTheEncodedRows() {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Nevera", 150);
+    readings.saveAll(List.of(
+        TestData.reading(d, H, 100, 20),
+        TestData.reading(d, H.plusSeconds(1200), 200, 20),
+        TestData.reading(d, H.plusSeconds(2400), 300, 20)));
+
+    assertEquals(3, archiveService.archiveDevice(d.getId(), archive.cutoff()));
+    assertNull(readings.oldestRecordedAt(d.getId()));
+    assertTrue(archive.hasMonth(d.getId(), YearMonth.of(2025, 1)));
+    assertEquals(3, archive.sumWattMinutes(d.getId(), H, H.plusSeconds(3600))[1]);
+  }
+
+  @Test
+  void rowInBothTiersIsCountedOnceAndTheHotOneWins() {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Horno", 2000);
+    readings.saveAll(List.of(
+        TestData.reading(d, H, 600, 30),
+        TestData.reading(d, H.plusSeconds(1800), 600, 30)));
+    archiveService.archiveDevice(d.getId(), archive.cutoff());
+    // caída entre escribir el archivo y borrar: la misma fila vuelve a estar caliente (con otro valor)
+    readings.save(TestData.reading(d, H, 1200, 30));
+
+    rollupService.recompute(List.of(u.getId()), H);
+    List<Object[]> series = rollups.seriesByBucket(u.getId(), H, H.plusSeconds(3600));
+    assertEquals(1, series.size());
+    assertEquals(0.9, ((Number) series.get(0)[1]).doubleValue(), 1e-9);
+
+    // al archivarla de nuevo el archivo se queda con la caliente: mismo resultado que antes de moverla
+    archiveService.archiveDevice(d.getId(), archive.cutoff());
+    assertNull(readings.oldestRecordedAt(d.getId()));
+    assertEquals(54_000, archive.sumWattMinutes(d.getId(), H, H.plusSeconds(3600))[0]);
+  }
+
+  @Test
+  void failedDeviceIsCountedAndRetriedLater() throws Exception {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Lavadora", 500);
+    readings.save(TestData.reading(d, H, 500, 60));
+    Path blocker = archiveDir.resolve(Long.toString(d.getId()));
+    Files.writeString(blocker, "no es un directorio");
+    double before = failures();
+
+    archiveService.archiveClosedMonths();
+    assertEquals(before + 1, failures());
+    assertEquals(H, readings.oldestRecordedAt(d.getId()));
+
+    Files.delete(blocker);
+    archiveService.archiveClosedMonths();
+    assertNull(readings.oldestRecordedAt(d.getId()));
+  }
+
+  private double failures() {
+    return metrics.find("luminav.archive.failures").counters().stream().mapToDouble(c -> c.count()).sum();
+  }
+}
@@ -0,0 +1,53 @@
+package com.luminav.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.luminav.service.DashboardService.Granularity.DAY;
+import static com.luminav.service.DashboardService.Granularity.HOUR;
+import static com.luminav.service.DashboardService.Granularity.MONTH;
+import static com.luminav.service.DashboardService.Granularity.WEEK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DashboardGranularityTest {
+
+  private static final Instant FROM = Instant.parse("2025-01-01T00:00:00Z");
+
+  private static DashboardService.Granularity forHours(long hours, int maxPoints) {
+    return DashboardService.granularityFor(FROM, FROM.plus(Duration.ofHours(hours)), maxPoints);
+  }
+
+  @Test
+  void picksTheFinestGranularityWithinFourTimesMaxPoints() {
+    // maxPoints = 3 -> hasta 12 buckets
+    assertEquals(HOUR, forHours(12, 3));
+    assertEquals(DAY, forHours(13, 3));
+    assertEquals(DAY, forHours(287, 3));  // 287/24 + 1 = 12 días
+    assertEquals(WEEK, forHours(288, 3));
+    assertEquals(WEEK, forHours(2015, 3)); // 2015/168 + 1 = 12 semanas
+    assertEquals(MONTH, forHours(2016, 3));
+  }
+
+  @Test
+  void partialHoursCountAsTheBucketsTheyTouch() {
+    Instant to = FROM.plus(Duration.ofHours(12));
+    assertEquals(HOUR, DashboardService.granularityFor(FROM, to, 3));
+    assertEquals(DAY, DashboardService.granularityFor(FROM, to.plusSeconds(1), 3));      // toca una hora 13
+    assertEquals(DAY, DashboardService.granularityFor(FROM.plusSeconds(1), to.plusSeconds(1), 3));
+    assertEquals(HOUR, DashboardService.granularityFor(FROM, FROM, 3));                  // rango vacío: 1 bucket
+  }
+
+  @Test
+  void maxPointsIsCappedButNeverRaised() {
+    assertEquals(3, DashboardService.targetPoints(3));
+    assertEquals(4, DashboardService.targetPoints(4));
+    assertEquals(2000, DashboardService.targetPoints(2000));
+    assertEquals(2000, DashboardService.targetPoints(2001));
+    assertEquals(2000, DashboardService.targetPoints(Integer.MAX_VALUE));
+    // con el tope: un año de horas (8760) supera 8000 buckets -> DAY
+    assertEquals(HOUR, forHours(8000, DashboardService.targetPoints(5000)));
+    assertEquals(DAY, forHours(8760, DashboardService.targetPoints(5000)));
+  }
+}
@@ -0,0 +1,85 @@
+package com.luminav.service;
+
+import com.luminav.dto.DashboardSummary;
+import com.luminav.entity.Device;
+import com.luminav.entity.User;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.UserRepository;
+import com.luminav.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:luminav_dashboard;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "app.rollup.bootstrap-hours=0",
+    "app.rollup.initial-delay-ms=3600000",
+    "app.rollup.backfill-initial-delay-ms=3600000"
+})
+class DashboardServiceTest {
+
+  private static final Instant H10 = Instant.parse("2025-06-10T10:00:00Z"); // 05:00 en Bogotá
+
+  @Autowired private DashboardService dashboard;
+  @Autowired private RollupService rollupService;
+  @Autowired private DirtyHourTracker tracker;
+  @Autowired private UserRepository users;
+  @Autowired private DeviceRepository devices;
+  @Autowired private ReadingRepository readings;
+
+  private User owner;
+  private Device device;
+
+  @BeforeEach
+  void seed() {
+    owner = TestData.owner(users);
+    device = TestData.device(devices, owner, "Ducha", 3500);
+    readings.saveAll(List.of(
+        TestData.reading(device, H10.plusSeconds(10 * 60), 1000, 20),  // 0.333 kWh
+        TestData.reading(device, H10.plusSeconds(50 * 60), 600, 10),   // 0.1 kWh
+        TestData.reading(device, H10.plusSeconds(75 * 60), 1200, 60))); // 1.2 kWh (hora 11)
+    tracker.mark(owner.getId(), H10);
+    tracker.mark(owner.getId(), H10.plusSeconds(3600));
+    rollupService.flushDirty();
+  }
+
+  @Test
+  void partialEdgeHoursOnlyCountReadingsInsideTheRange() {
+    // desde 10:30: la lectura de 10:10 queda fuera aunque esté en el rollup de las 10
+    DashboardSummary s = dashboard.summarize(owner.getId(), H10.plusSeconds(30 * 60), H10.plusSeconds(2 * 3600));
+    assertEquals(1.3, s.totalKwh, 1e-9);
+
+    // hasta 11:30: hora 10 completa del rollup + la lectura de 11:15
+    s = dashboard.summarize(owner.getId(), H10, H10.plusSeconds(90 * 60));
+    assertEquals(1.633, s.totalKwh, 1e-9);
+    assertEquals(1.633, s.topDevices.get(0).kwh, 1e-9);
+    assertEquals(1.633, s.byBand.stream().mapToDouble(b -> b.kwh).sum(), 1e-9);
+  }
+
+  @Test
+  void hoursAreLabelledInTheTariffZone() {
+    DashboardSummary s = dashboard.summarize(owner.getId(), H10, H10.plusSeconds(2 * 3600));
+    assertEquals("2025-06-10 05:00", s.byHour.get(0).bucket);
+    assertEquals("2025-06-10 06:00", s.byHour.get(1).bucket);
+  }
+
+  @Test
+  void currentHourCountsBeforeTheNextFlush() {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    readings.save(TestData.reading(device, now, 3000, 60)); // sin marcar ni recalcular
+    DashboardSummary s = dashboard.summarize(owner.getId(), now.minus(2, ChronoUnit.HOURS), now.plusSeconds(1));
+    assertEquals(3.0, s.totalKwh, 1e-9);
+    assertTrue(s.totalCost > 0);
+  }
+}
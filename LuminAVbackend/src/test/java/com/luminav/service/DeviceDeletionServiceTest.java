@@ -0,0 +1,145 @@
+package com.luminav.service;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.DeviceDeletionJob;
+import com.luminav.entity.HourlyRollup;
+import com.luminav.entity.Reading;
+import com.luminav.entity.Recommendation;
+import com.luminav.entity.User;
+import com.luminav.repository.DeviceDeletionJobRepository;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.HourlyRollupRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.RecommendationRepository;
+import com.luminav.repository.UserRepository;
+import com.luminav.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:luminav_deletion;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "app.rollup.bootstrap-hours=0",
+    "app.rollup.initial-delay-ms=3600000",
+    "app.rollup.backfill-initial-delay-ms=3600000",
+    "app.devices.purge-initial-delay-ms=3600000",
+    "app.devices.purge-batch-size=2",
+    "app.devices.purge-max-batches=2",
+    "app.devices.purge-max-attempts=2",
+    "app.devices.purge-retry-base-ms=0"
+})
+class DeviceDeletionServiceTest {
+
+  private static final Instant T0 = Instant.parse("2025-06-10T15:00:00Z");
+
+  @Autowired private DeviceDeletionService deletion;
+  @Autowired private DeviceDeletionJobRepository jobs;
+  @Autowired private UserRepository users;
+  @Autowired private DeviceRepository devices;
+  @Autowired private ReadingRepository readings;
+  @Autowired private HourlyRollupRepository rollups;
+  @Autowired private RecommendationRepository recos;
+  @MockitoSpyBean private ReadingArchive archive;
+
+  private Device deviceWithReadings(User u, int n) {
+    Device d = TestData.device(devices, u, "Calentador", 1500);
+    List<Reading> rs = new ArrayList<>();
+    for (int i = 0; i < n; i++) rs.add(TestData.reading(d, T0.plusSeconds(60L * i), 1500, 1));
+    readings.saveAll(rs);
+    return d;
+  }
+
+  /** Corre el purgado hasta que el job sale de PENDING/RUNNING (con tope para no colgar la prueba) */
+  private DeviceDeletionJob purgeUntilSettled(Long jobId) {
+    DeviceDeletionJob job = jobs.findById(jobId).orElseThrow();
+    for (int i = 0; i < 20 && ("PENDING".equals(job.getStatus()) || "RUNNING".equals(job.getStatus())); i++) {
+      deletion.purgePending();
+      job = jobs.findById(jobId).orElseThrow();
+    }
+    return job;
+  }
+
+  @Test
+  void tombstoneThenBatchedPurgeThenFinalDelete() {
+    User u = TestData.owner(users);
+    Device d = deviceWithReadings(u, 7);
+    HourlyRollup h = new HourlyRollup();
+    h.setOwnerId(u.getId()); h.setDeviceId(d.getId()); h.setBucketStart(T0); h.setKwh(0.175); h.setSamples(7);
+    rollups.save(h);
+    Recommendation reco = new Recommendation();
+    reco.setOwner(u); reco.setDevice(d); reco.setLevel("INFO"); reco.setMessage("m");
+    reco = recos.save(reco);
+
+    DeviceDeletionJob job = deletion.requestDeletion(d);
+    // tombstone: el dispositivo sigue en la tabla pero ya no cuenta
+    assertNotNull(devices.findById(d.getId()).orElseThrow().getDeletedAt());
+    assertTrue(rollups.findById(h.getId()).isEmpty());
+    assertEquals("PENDING", job.getStatus());
+
+    // 2 lotes de 2 filas por ejecución
+    deletion.purgePending();
+    job = jobs.findById(job.getId()).orElseThrow();
+    assertEquals("RUNNING", job.getStatus());
+    assertEquals(4, job.getDeletedReadings());
+    assertEquals(T0.plusSeconds(240), readings.oldestRecordedAt(d.getId()));
+
+    job = purgeUntilSettled(job.getId());
+    assertEquals("DONE", job.getStatus());
+    assertEquals(7, job.getDeletedReadings());
+    assertNotNull(job.getFinishedAt());
+    assertTrue(devices.findById(d.getId()).isEmpty());
+    assertNull(recos.findById(reco.getId()).orElseThrow().getDevice());
+  }
+
+  @Test
+  void failedPurgeIsRetriedInsteadOfStayingFailed() {
+    User u = TestData.owner(users);
+    Device d = deviceWithReadings(u, 1);
+    doThrow(new UncheckedIOException(new IOException("disco lleno")))
+        .doCallRealMethod().when(archive).deleteDevice(eq(d.getId().longValue()));
+
+    DeviceDeletionJob job = deletion.requestDeletion(d);
+    deletion.purgePending();
+    job = jobs.findById(job.getId()).orElseThrow();
+    assertEquals("PENDING", job.getStatus());
+    assertEquals(1, job.getAttempts());
+    assertTrue(job.getError().contains("disco lleno"));
+    assertNotNull(job.getNextAttemptAt());
+
+    job = purgeUntilSettled(job.getId());
+    assertEquals("DONE", job.getStatus());
+    assertNull(job.getError());
+    assertTrue(devices.findById(d.getId()).isEmpty());
+  }
+
+  @Test
+  void jobFailsAfterMaxAttempts() {
+    User u = TestData.owner(users);
+    Device d = deviceWithReadings(u, 1);
+    doThrow(new UncheckedIOException(new IOException("disco lleno"))).when(archive).deleteDevice(eq(d.getId().longValue()));
+
+    DeviceDeletionJob job = purgeUntilSettled(deletion.requestDeletion(d).getId());
+    assertEquals("FAILED", job.getStatus());
+    assertEquals(2, job.getAttempts());
+    assertNotNull(job.getFinishedAt());
+    assertNull(job.getNextAttemptAt());
+    // el tombstone se mantiene: el dispositivo sigue oculto
+    assertNotNull(devices.findById(d.getId()).orElseThrow().getDeletedAt());
+  }
+}
@@ -0,0 +1,48 @@
+package com.luminav.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirtyHourTrackerTest {
+
+  @Test
+  void coalescesReadingsOfTheSameOwnerAndHour() {
+    DirtyHourTracker tracker = new DirtyHourTracker();
+    Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+    tracker.mark(1, hour);
+    tracker.mark(1, hour.plusSeconds(59 * 60));
+    tracker.mark(2, hour);
+    assertEquals(2, tracker.pending());
+    assertEquals(0, tracker.lateReadings());
+
+    tracker.mark(1, hour.minusSeconds(1)); // hora anterior: tardía
+    assertEquals(3, tracker.pending());
+    assertEquals(1, tracker.lateReadings());
+  }
+
+  @Test
+  void drainRemovesAtMostMaxAndFailedBucketsCanBeRemarked() {
+    DirtyHourTracker tracker = new DirtyHourTracker();
+    Instant base = Instant.parse("2025-06-10T00:00:00Z");
+    for (int h = 0; h < 5; h++) tracker.mark(7, base.plusSeconds(h * 3600L + 120));
+
+    List<DirtyHourTracker.Bucket> first = tracker.drain(3);
+    assertEquals(3, first.size());
+    assertEquals(2, tracker.pending());
+    for (DirtyHourTracker.Bucket b : first) assertEquals(0, b.hourEpochSecond() % 3600);
+
+    tracker.markAll(first); // el recalculo falló: vuelven al set
+    Set<DirtyHourTracker.Bucket> all = new HashSet<>(tracker.drain(100));
+    assertEquals(5, all.size());
+    assertTrue(all.contains(new DirtyHourTracker.Bucket(7, base.getEpochSecond())));
+    assertEquals(0, tracker.pending());
+  }
+}
@@ -0,0 +1,41 @@
+package com.luminav.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownsamplingTest {
+
+  private static double[] range(int n) {
+    double[] x = new double[n];
+    for (int i = 0; i < n; i++) x[i] = i;
+    return x;
+  }
+
+  @Test
+  void shortSeriesIsReturnedUnchanged() {
+    assertArrayEquals(new int[]{0, 1, 2}, Downsampling.lttb(range(3), new double[]{1, 5, 2}, 10));
+  }
+
+  @Test
+  void keepsEndpointsAndTheSpike() {
+    int n = 8760; // un año de horas
+    double[] y = new double[n];
+    for (int i = 0; i < n; i++) y[i] = 1 + (i % 24) / 24.0;
+    y[5000] = 50; // pico aislado
+
+    int[] idx = Downsampling.lttb(range(n), y, 200);
+
+    assertEquals(200, idx.length);
+    assertEquals(0, idx[0]);
+    assertEquals(n - 1, idx[idx.length - 1]);
+    boolean spike = false;
+    for (int k = 0; k < idx.length; k++) {
+      if (k > 0) assertTrue(idx[k] > idx[k - 1]);
+      spike |= idx[k] == 5000;
+    }
+    assertTrue(spike, "LTTB debe conservar el pico");
+  }
+}
@@ -0,0 +1,104 @@
+package com.luminav.service;
+
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.ReadingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LiveDeviceRegistryTest {
+
+  private static final Instant T0 = Instant.parse("2025-06-10T15:00:00Z"); // 10:00 en Bogotá
+  private static final long OFFLINE_AFTER = 10;
+
+  @Test
+  void tracksOnSinceAcrossConsecutiveReadings() {
+    LiveDeviceRegistry.Snapshot s = LiveDeviceRegistry.Snapshot.empty(1)
+        .apply(T0, 800, 1, 5, OFFLINE_AFTER)
+        .apply(T0.plusSeconds(60), 900, 1, 5, OFFLINE_AFTER);
+    assertEquals(900, s.watt());
+    assertEquals(T0, s.onSince());
+
+    s = s.apply(T0.plusSeconds(120), 0, 1, 5, OFFLINE_AFTER);
+    assertNull(s.onSince());
+    assertEquals(T0.plusSeconds(120), s.lastSeen());
+    assertEquals(T0.plusSeconds(180), s.apply(T0.plusSeconds(180), 100, 1, 5, OFFLINE_AFTER).onSince());
+  }
+
+  @Test
+  void lateReadingOnlyAddsEnergy() {
+    LiveDeviceRegistry.Snapshot s = LiveDeviceRegistry.Snapshot.empty(1)
+        .apply(T0, 600, 60, 5, OFFLINE_AFTER)
+        .apply(T0.minusSeconds(3600), 1200, 60, 5, OFFLINE_AFTER);
+    assertEquals(600, s.watt());
+    assertEquals(T0, s.lastSeen());
+    assertEquals(1.8, s.todayKwh(), 1e-9);
+  }
+
+  @Test
+  void energyResetsOnNewLocalDay() {
+    LiveDeviceRegistry.Snapshot s = LiveDeviceRegistry.Snapshot.empty(1)
+        .apply(Instant.parse("2025-06-11T04:30:00Z"), 1000, 60, 5, OFFLINE_AFTER)  // 23:30 del 10 en Bogotá
+        .apply(Instant.parse("2025-06-11T05:10:00Z"), 1000, 30, 5, OFFLINE_AFTER); // 00:10 del 11
+    assertEquals(0.5, s.todayKwh(), 1e-9);
+    // una lectura tardía del día anterior ya no suma a hoy
+    assertEquals(0.5, s.apply(Instant.parse("2025-06-11T04:45:00Z"), 1000, 60, 5, OFFLINE_AFTER).todayKwh(), 1e-9);
+  }
+
+  @Test
+  void offlineGapRestartsOnSince() {
+    LiveDeviceRegistry.Snapshot s = LiveDeviceRegistry.Snapshot.empty(1)
+        .apply(T0, 800, 1, 5, OFFLINE_AFTER)
+        .apply(T0.plusSeconds(9 * 60), 800, 1, 5, OFFLINE_AFTER);
+    assertEquals(T0, s.onSince());
+
+    // 10 minutos sin lecturas: estuvo OFFLINE, el encendido cuenta desde la lectura que vuelve
+    Instant back = T0.plusSeconds(19 * 60);
+    assertEquals(back, s.apply(back, 800, 1, 5, OFFLINE_AFTER).onSince());
+  }
+
+  @Test
+  void readingsArrivingDuringRebuildAreCountedOnce() {
+    DeviceRepository devices = mock(DeviceRepository.class);
+    ReadingRepository readings = mock(ReadingRepository.class);
+    LiveDeviceRegistry registry = new LiveDeviceRegistry(devices, readings);
+    ReflectionTestUtils.setField(registry, "offlineAfterMinutes", OFFLINE_AFTER);
+    ReflectionTestUtils.setField(registry, "onWattThreshold", 5);
+
+    Instant at = Instant.now().minusSeconds(1);
+    when(devices.allActiveIds()).thenReturn(List.<Object[]>of(new Object[]{1L, 7L}));
+    when(readings.maxId()).thenReturn(10L);
+    when(readings.wattMinutesByDeviceSince(anyCollection(), any(), anyLong())).thenAnswer(inv -> {
+      // mientras consulta: la lectura 10 ya está en la suma (su afterCommit llega tarde) y la 11 es nueva
+      registry.record(1, 7, 10, at, 1000, 6);
+      registry.record(1, 7, 11, Instant.now(), 500, 12);
+      return List.<Object[]>of(new Object[]{7L, 6000L}); // 0.1 kWh hasta el id 10
+    });
+    when(readings.latestPerDeviceSince(anyCollection(), any())).thenReturn(List.<Object[]>of(new Object[]{7L, at, 1000}));
+
+    registry.rebuild();
+    LiveDeviceRegistry.Snapshot s = registry.snapshots(1).get(0);
+    assertEquals(0.2, s.todayKwh(), 1e-9);
+    assertEquals(500, s.watt()); // la lectura en vivo es más nueva que la de la consulta
+
+    // reconstruir otra vez no acumula sobre lo anterior
+    when(readings.maxId()).thenReturn(11L);
+    when(readings.wattMinutesByDeviceSince(anyCollection(), any(), anyLong()))
+        .thenReturn(List.<Object[]>of(new Object[]{7L, 12000L}));
+    registry.rebuild();
+    assertEquals(0.2, registry.snapshots(1).get(0).todayKwh(), 1e-9);
+
+    registry.record(1, 7, 12, Instant.now(), 600, 10);
+    assertEquals(0.3, registry.snapshots(1).get(0).todayKwh(), 1e-9);
+  }
+}
@@ -0,0 +1,74 @@
+package com.luminav.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadingArchiveTest {
+
+  private static final long T0 = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+  private static List<long[]> decodeAll(byte[] block, long from, long to) {
+    List<long[]> rows = new ArrayList<>();
+    ReadingArchiveCodec.decode(ByteBuffer.wrap(block), from, to, (t, w, m) -> rows.add(new long[]{t, w, m}));
+    return rows;
+  }
+
+  @Test
+  void codecRoundTripsIrregularSeriesCompactly() {
+    int n = 1440;
+    long[] t = new long[n];
+    int[] w = new int[n];
+    int[] m = new int[n];
+    for (int i = 0; i < n; i++) {
+      t[i] = T0 + i * 60_000L + (i % 97 == 0 ? 1_500 : 0); // algún jitter
+      w[i] = i % 50 == 0 ? -1 : 100 + (i % 7);
+      m[i] = i % 300 == 0 ? 5 : 1;
+    }
+    byte[] block = ReadingArchiveCodec.encode(42, t, w, m, n);
+    assertTrue(block.length < n * 4, "se esperaban < 4 bytes por fila, fueron " + block.length);
+    assertEquals(42, ReadingArchiveCodec.deviceId(ByteBuffer.wrap(block)));
+
+    List<long[]> rows = decodeAll(block, Long.MIN_VALUE, Long.MAX_VALUE);
+    assertEquals(n, rows.size());
+    for (int i = 0; i < n; i++) {
+      assertEquals(t[i], rows.get(i)[0]);
+      assertEquals(w[i], rows.get(i)[1]);
+      assertEquals(m[i], rows.get(i)[2]);
+    }
+    // rango semiabierto [from, to)
+    assertEquals(10, decodeAll(block, t[100], t[110]).size());
+  }
+
+  @Test
+  void appendMergesWithoutDuplicatesAndScanReadsMappedFile(@TempDir Path dir) {
+    ReadingArchive archive = new ReadingArchive(dir.toString(), 3);
+    YearMonth jan = YearMonth.of(2025, 1);
+    archive.append(7, jan, new long[]{T0, T0 + 120_000}, new int[]{10, 30}, new int[]{1, 1}, 2);
+    // reintento con una fila repetida y una nueva en medio
+    archive.append(7, jan, new long[]{T0 + 60_000, T0 + 120_000}, new int[]{20, 99}, new int[]{1, 1}, 2);
+
+    List<long[]> rows = new ArrayList<>();
+    archive.scan(7, Instant.ofEpochMilli(T0), Instant.ofEpochMilli(T0 + 180_000), (t, w, m) -> rows.add(new long[]{t, w}));
+    assertEquals(3, rows.size());
+    assertEquals(20, rows.get(1)[1]);
+    assertEquals(99, rows.get(2)[1]); // gana la fila nueva (caliente), como al leer las dos capas
+    assertEquals(129, archive.sumWattMinutes(7, Instant.ofEpochMilli(T0), Instant.ofEpochMilli(T0 + 180_000))[0]);
+
+    assertTrue(archive.hasMonth(7, jan));
+    archive.deleteDevice(7);
+    assertFalse(archive.hasMonth(7, jan));
+    assertFalse(Files.exists(dir.resolve("7")));
+  }
+}
@@ -0,0 +1,125 @@
+package com.luminav.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReadingFrameDecoderTest {
+
+  private static final long T0 = 1_750_000_000L; // epoch seconds
+
+  private static void varint(ByteArrayOutputStream out, long v) {
+    while ((v & ~0x7FL) != 0) {
+      out.write((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.write((int) v);
+  }
+
+  private static long zigzag(long v) {
+    return (v << 1) ^ (v >> 63);
+  }
+
+  /** Frame completo (longitud + cuerpo); rows = {epochSecond, watt, minutes} */
+  private static byte[] frame(long deviceId, long[]... rows) {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    varint(body, deviceId);
+    varint(body, rows.length);
+    varint(body, rows[0][0]);
+    varint(body, rows[0][1]);
+    varint(body, rows[0][2]);
+    for (int i = 1; i < rows.length; i++) {
+      varint(body, zigzag(rows[i][0] - rows[i - 1][0]));
+      varint(body, rows[i][1]);
+      varint(body, rows[i][2]);
+    }
+    return withLength(body.toByteArray());
+  }
+
+  private static byte[] withLength(byte[] body) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    varint(out, body.length);
+    out.writeBytes(body);
+    return out.toByteArray();
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] p : parts) out.writeBytes(p);
+    return out.toByteArray();
+  }
+
+  @Test
+  void roundTripsFramesWithOutOfOrderDeltasAndDefaultMinutes() {
+    byte[] payload = concat(
+        frame(7, new long[]{T0, 120, 1}, new long[]{T0 + 60, 130, 1}, new long[]{T0 + 30, 0, 0}),
+        frame(300_000, new long[]{T0, 2_000_000, 15}));
+
+    ReadingIngestService.Batch batch = ReadingFrameDecoder.decode(payload, 100);
+    assertEquals(4, batch.size());
+    assertEquals(7, batch.deviceId(0));
+    assertEquals(T0 * 1000L, batch.recordedAtMillis(0));
+    assertEquals((T0 + 60) * 1000L, batch.recordedAtMillis(1));
+    assertEquals((T0 + 30) * 1000L, batch.recordedAtMillis(2)); // delta negativo
+    assertEquals(130, batch.watt(1));
+    assertEquals(0, batch.watt(2));
+    assertEquals(60, batch.minutes(2)); // 0 -> 60 solo en el binario
+    assertEquals(300_000, batch.deviceId(3));
+    assertEquals(2_000_000, batch.watt(3));
+    assertEquals(15, batch.minutes(3));
+  }
+
+  @Test
+  void rejectsTruncatedAndMisframedPayloads() {
+    byte[] ok = frame(7, new long[]{T0, 120, 1}, new long[]{T0 + 60, 130, 1});
+    byte[] truncated = Arrays.copyOf(ok, ok.length - 1);
+    assertThrows(IllegalArgumentException.class, () -> ReadingFrameDecoder.decode(truncated, 100));
+
+    // longitud declarada mayor que el cuerpo que declara count: bytes sobrantes
+    byte[] body = Arrays.copyOfRange(ok, 1, ok.length);
+    byte[] padded = withLength(concat(body, new byte[]{0}));
+    assertThrows(IllegalArgumentException.class, () -> ReadingFrameDecoder.decode(padded, 100));
+
+    assertThrows(IllegalArgumentException.class, () -> ReadingFrameDecoder.decode(new byte[]{0}, 100));
+    assertThrows(IllegalArgumentException.class, () -> ReadingFrameDecoder.decode(ok, 1)); // supera maxReadings
+    assertThrows(IllegalArgumentException.class,
+        () -> ReadingFrameDecoder.decode(frame(0, new long[]{T0, 1, 1}), 100)); // deviceId 0
+  }
+
+  @Test
+  void rejectsOverlongAndOutOfRangeVarints() {
+    // 11 bytes de continuación: nunca termina dentro de 64 bits
+    byte[] tooLong = new byte[12];
+    Arrays.fill(tooLong, 0, 11, (byte) 0x80);
+    assertThrows(IllegalArgumentException.class, () -> ReadingFrameDecoder.decode(tooLong, 100));
+
+    // décimo byte con bits por encima del 63: antes daba un valor negativo
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    varint(body, 7);
+    varint(body, 1);
+    varint(body, T0);
+    body.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+        (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F}); // watt
+    varint(body, 1);
+    byte[] overlong = withLength(body.toByteArray());
+    assertThrows(IllegalArgumentException.class, () -> ReadingFrameDecoder.decode(overlong, 100));
+
+    // watt con bit 63 (varint válido de 64 bits) y watt > Integer.MAX_VALUE
+    assertThrows(IllegalArgumentException.class,
+        () -> ReadingFrameDecoder.decode(frame(7, new long[]{T0, Long.MIN_VALUE, 1}), 100));
+    assertThrows(IllegalArgumentException.class,
+        () -> ReadingFrameDecoder.decode(frame(7, new long[]{T0, 1L << 31, 1}), 100));
+  }
+
+  @Test
+  void rejectsTimestampsThatOverflowMillis() {
+    assertThrows(IllegalArgumentException.class,
+        () -> ReadingFrameDecoder.decode(frame(7, new long[]{Long.MAX_VALUE / 1000L + 1, 1, 1}), 100));
+    assertThrows(IllegalArgumentException.class,
+        () -> ReadingFrameDecoder.decode(frame(7, new long[]{T0, 1, 1}, new long[]{-1_000L, 1, 1}), 100));
+  }
+}
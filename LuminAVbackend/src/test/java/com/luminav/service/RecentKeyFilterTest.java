@@ -0,0 +1,74 @@
+package com.luminav.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentKeyFilterTest {
+
+  @Test
+  void naturalKeyIsExactAndRejectsOutOfRangeIds() {
+    long t = 1_760_000_000_000L;
+    assertNotEquals(RecentKeyFilter.naturalKey(1, t), RecentKeyFilter.naturalKey(2, t));
+    assertNotEquals(RecentKeyFilter.naturalKey(1, t), RecentKeyFilter.naturalKey(1, t + 1));
+    assertEquals(0, RecentKeyFilter.naturalKey(1L << 20, t));
+    assertEquals(0, RecentKeyFilter.naturalKey(0, t));
+  }
+
+  @Test
+  void remembersReadingsAcrossOneRotation() {
+    RecentKeyFilter filter = new RecentKeyFilter(15, 16);
+    long first = RecentKeyFilter.naturalKey(7, 1_000);
+    filter.rememberReading(first);
+    assertTrue(filter.seenReading(first));
+
+    // llenar la generación actual fuerza una rotación: la clave sigue en la anterior
+    for (int i = 1; i <= 16; i++) filter.rememberReading(RecentKeyFilter.naturalKey(7, 1_000 + i));
+    assertTrue(filter.seenReading(first));
+
+    // una segunda rotación la descarta: la memoria queda acotada a dos generaciones
+    for (int i = 17; i <= 40; i++) filter.rememberReading(RecentKeyFilter.naturalKey(7, 1_000 + i));
+    assertFalse(filter.seenReading(first));
+  }
+
+  @Test
+  void idempotencyKeysAreRememberedOnlyWhenAdded() {
+    RecentKeyFilter filter = new RecentKeyFilter(15, 16);
+    assertFalse(filter.seenBatch("gw-1:42"));
+    filter.rememberBatch("gw-1:42");
+    assertTrue(filter.seenBatch("gw-1:42"));
+  }
+
+  @Test
+  void batchKeyIsScopedByGatewayAndDevices() {
+    ReadingIngestService.Batch a = new ReadingIngestService.Batch(2);
+    a.add(3, 1_000, 100, 1);
+    a.add(5, 1_000, 100, 1);
+    ReadingIngestService.Batch sameDevices = new ReadingIngestService.Batch(3);
+    sameDevices.add(5, 2_000, 200, 1);
+    sameDevices.add(3, 2_000, 200, 1);
+    sameDevices.add(5, 3_000, 200, 1);
+    ReadingIngestService.Batch otherDevices = new ReadingIngestService.Batch(1);
+    otherDevices.add(4, 1_000, 100, 1);
+
+    // el reintento del mismo gateway con los mismos dispositivos se reconoce
+    assertEquals(RecentKeyFilter.batchKey("gw-1", "42", a), RecentKeyFilter.batchKey("gw-1", "42", sameDevices));
+    // otro gateway u otros dispositivos con la misma Idempotency-Key no se descartan
+    assertNotEquals(RecentKeyFilter.batchKey("gw-1", "42", a), RecentKeyFilter.batchKey("gw-2", "42", a));
+    assertNotEquals(RecentKeyFilter.batchKey("gw-1", "42", a), RecentKeyFilter.batchKey(null, "42", a));
+    assertNotEquals(RecentKeyFilter.batchKey("gw-1", "42", a), RecentKeyFilter.batchKey("gw-1", "42", otherDevices));
+  }
+
+  @Test
+  void tablesStartSmallAndGrowWithUse() {
+    RecentKeyFilter.LongGenerations gens = new RecentKeyFilter.LongGenerations(1_000_000, 15 * 60_000L);
+    assertEquals(1024, gens.capacity());
+    for (int i = 1; i <= 10_000; i++) gens.add(RecentKeyFilter.naturalKey(9, i));
+    for (int i = 1; i <= 10_000; i++) assertTrue(gens.contains(RecentKeyFilter.naturalKey(9, i)));
+    assertFalse(gens.contains(RecentKeyFilter.naturalKey(9, 10_001)));
+    assertTrue(gens.capacity() >= 20_000 && gens.capacity() <= 32_768);
+  }
+}
@@ -0,0 +1,115 @@
+package com.luminav.service;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.HourlyRollup;
+import com.luminav.entity.Recommendation;
+import com.luminav.entity.User;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.HourlyRollupRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.RecommendationRepository;
+import com.luminav.repository.UserRepository;
+import com.luminav.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:luminav_agent;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "app.rollup.bootstrap-hours=0",
+    "app.rollup.initial-delay-ms=3600000",
+    "app.rollup.backfill-initial-delay-ms=3600000",
+    "app.agent.initial-delay-ms=3600000",
+    "app.agent.window-minutes=60"
+})
+class RecommendationAgentTest {
+
+  private static final String ABOVE_HISTORY = "consume más de lo habitual";
+  private static final String ABOVE_RATED = "por encima de su potencia nominal";
+
+  @Autowired private RecommendationAgent agent;
+  @Autowired private UserRepository users;
+  @Autowired private DeviceRepository devices;
+  @Autowired private ReadingRepository readings;
+  @Autowired private HourlyRollupRepository rollups;
+  @Autowired private RecommendationRepository recos;
+
+  // 3 lecturas de 10 min a 'watt' dentro de la ventana de 60 min
+  private void windowReadings(Device d, int watt) {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    readings.saveAll(List.of(
+        TestData.reading(d, now.minusSeconds(25 * 60), watt, 10),
+        TestData.reading(d, now.minusSeconds(15 * 60), watt, 10),
+        TestData.reading(d, now.minusSeconds(5 * 60), watt, 10)));
+  }
+
+  // Misma hora de los últimos 7 días, kwh por hora (baseline del agente)
+  private void history(User u, Device d, double kwh) {
+    ZonedDateTime hour = ZonedDateTime.now(TariffPricing.ZONE).truncatedTo(ChronoUnit.HOURS);
+    for (int k = 1; k <= 7; k++) {
+      HourlyRollup h = new HourlyRollup();
+      h.setOwnerId(u.getId()); h.setDeviceId(d.getId()); h.setBucketStart(hour.minusDays(k).toInstant());
+      h.setKwh(kwh); h.setSamples(6);
+      rollups.save(h);
+    }
+  }
+
+  private long count(User u, String text) {
+    return recos.findByOwner_IdOrderByCreatedAtDesc(u.getId(), PageRequest.of(0, 100)).stream()
+        .map(Recommendation::getMessage).filter(m -> m.contains(text)).count();
+  }
+
+  @Test
+  void aboveHistoryAlertsOncePerEpisode() {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Aire", 2000); // nominal alto: solo aplica la regla de historia
+    history(u, d, 0.05);
+    windowReadings(d, 600); // 0.3 kWh vs ~0.05 esperados
+
+    agent.generateForOwner(u.getId());
+    agent.generateForOwner(u.getId());
+    assertEquals(1, count(u, ABOVE_HISTORY));
+    assertEquals(0, count(u, ABOVE_RATED));
+
+    // sin lecturas en la ventana el episodio termina; el siguiente vuelve a avisar
+    readings.deleteBatchByDeviceId(d.getId(), 100);
+    agent.generateForOwner(u.getId());
+    windowReadings(d, 600);
+    agent.generateForOwner(u.getId());
+    assertEquals(2, count(u, ABOVE_HISTORY));
+  }
+
+  @Test
+  void aboveRatedWattAlertsOncePerEpisode() {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Nevera", 150); // sin historia: solo la regla de potencia nominal
+    windowReadings(d, 400); // 400 W > 150 W * 1.2
+
+    agent.generateForOwner(u.getId());
+    agent.generateForOwner(u.getId());
+    agent.generateForOwner(u.getId());
+    assertEquals(1, count(u, ABOVE_RATED));
+    assertEquals(0, count(u, ABOVE_HISTORY));
+
+    // vuelve a su potencia: se rearma, y un nuevo exceso avisa otra vez
+    readings.deleteBatchByDeviceId(d.getId(), 100);
+    windowReadings(d, 140);
+    agent.generateForOwner(u.getId());
+    assertEquals(1, count(u, ABOVE_RATED));
+
+    readings.deleteBatchByDeviceId(d.getId(), 100);
+    windowReadings(d, 400);
+    agent.generateForOwner(u.getId());
+    assertEquals(2, count(u, ABOVE_RATED));
+  }
+}
@@ -0,0 +1,186 @@
+package com.luminav.service;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.RollupBackfill;
+import com.luminav.entity.Tariff;
+import com.luminav.entity.TariffBand;
+import com.luminav.entity.User;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.HourlyRollupRepository;
+import com.luminav.repository.ReadingRepository;
+import com.luminav.repository.RollupBackfillRepository;
+import com.luminav.repository.TariffRepository;
+import com.luminav.repository.UserRepository;
+import com.luminav.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("loadtest")
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:luminav_rollup;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "app.rollup.bootstrap-hours=0",
+    "app.rollup.initial-delay-ms=3600000",
+    "app.rollup.backfill-initial-delay-ms=3600000",
+    "app.rollup.backfill-hours-per-run=240"
+})
+class RollupServiceTest {
+
+  @Autowired private RollupService rollupService;
+  @Autowired private DirtyHourTracker tracker;
+  @Autowired private UserRepository users;
+  @Autowired private DeviceRepository devices;
+  @Autowired private ReadingRepository readings;
+  @Autowired private TariffRepository tariffs;
+  @Autowired private HourlyRollupRepository rollups;
+  @Autowired private RollupBackfillRepository backfills;
+
+  @Test
+  void flushDirtyRecomputesOnlyMarkedHoursAndPricesThemByBand() {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Aire", 1000);
+    Tariff t = new Tariff();
+    t.setOwner(u); t.setPricePerKwh(650);
+    TariffBand peak = new TariffBand();
+    peak.setTariff(t); peak.setName("PEAK"); peak.setStartHour(18); peak.setEndHour(22); peak.setPricePerKwh(900);
+    t.getBands().add(peak);
+    tariffs.save(t);
+
+    Instant peakHour = Instant.parse("2025-06-10T23:00:00Z"); // 18:00 en Bogotá (martes)
+    Instant flatHour = Instant.parse("2025-06-10T15:00:00Z"); // 10:00
+    readings.saveAll(List.of(
+        TestData.reading(d, peakHour, 1000, 30),
+        TestData.reading(d, peakHour.plusSeconds(1800), 1000, 30),
+        TestData.reading(d, flatHour, 500, 60)));
+    Instant dayFrom = Instant.parse("2025-06-10T00:00:00Z");
+    Instant dayTo = dayFrom.plus(Duration.ofDays(1));
+
+    tracker.mark(u.getId(), peakHour.plusSeconds(600));
+    rollupService.flushDirty();
+    assertEquals(0, tracker.pending());
+    List<Object[]> series = rollups.seriesByBucket(u.getId(), dayFrom, dayTo);
+    assertEquals(1, series.size()); // la hora de las 15:00 no se marcó
+    assertEquals(peakHour, series.get(0)[0]);
+    assertEquals(1.0, ((Number) series.get(0)[1]).doubleValue(), 1e-9);
+    assertEquals(900.0, ((Number) series.get(0)[2]).doubleValue(), 1e-9);
+
+    tracker.mark(u.getId(), flatHour);
+    rollupService.flushDirty();
+    series = rollups.seriesByBucket(u.getId(), dayFrom, dayTo);
+    assertEquals(2, series.size());
+    assertEquals(flatHour, series.get(0)[0]);
+    assertEquals(0.5 * 650, ((Number) series.get(0)[2]).doubleValue(), 1e-9);
+
+    // recalcular la misma hora reemplaza el bucket, no lo duplica
+    tracker.mark(u.getId(), peakHour);
+    rollupService.flushDirty();
+    assertEquals(2, rollups.seriesByBucket(u.getId(), dayFrom, dayTo).size());
+  }
+
+  @Test
+  void bootstrapMarksOwnersInChunksThatFitOneRun() {
+    User a = TestData.owner(users);
+    User b = TestData.owner(users);
+    Instant hour = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(Duration.ofHours(2));
+    readings.saveAll(List.of(
+        TestData.reading(TestData.device(devices, a, "Nevera", 150), hour, 600, 60),
+        TestData.reading(TestData.device(devices, b, "Nevera", 150), hour, 300, 60)));
+
+    ReflectionTestUtils.setField(rollupService, "bootstrapHours", 3);
+    ReflectionTestUtils.setField(rollupService, "maxBucketsPerRun", 3); // un owner por tanda
+    try {
+      rollupService.bootstrap();
+      assertEquals(0, tracker.pending()); // al arrancar no se marca nada
+      for (int i = 0; i < 100 && rollupService.bootstrapPending(); i++) {
+        rollupService.flushDirty();
+        assertTrue(tracker.pending() <= 3);
+      }
+      assertFalse(rollupService.bootstrapPending());
+      rollupService.flushDirty();
+      assertEquals(0.6, ((Number) rollups.sumKwhByBucket(a.getId(), hour, hour.plusSeconds(3600)).get(0)[1]).doubleValue(), 1e-9);
+      assertEquals(0.3, ((Number) rollups.sumKwhByBucket(b.getId(), hour, hour.plusSeconds(3600)).get(0)[1]).doubleValue(), 1e-9);
+    } finally {
+      ReflectionTestUtils.setField(rollupService, "bootstrapHours", 0);
+      ReflectionTestUtils.setField(rollupService, "maxBucketsPerRun", 5000);
+    }
+  }
+
+  @Test
+  void lateReadingIsPricedWithTheVersionInForceAtItsHour() {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Horno", 2000);
+    Instant change = Instant.parse("2025-06-01T05:00:00Z"); // 00:00 en Bogotá
+    tariffs.save(version(u, Instant.EPOCH, 500));
+    tariffs.save(version(u, change, 800));
+
+    Instant before = change.minus(Duration.ofDays(2));
+    Instant after = change.plus(Duration.ofDays(2));
+    readings.saveAll(List.of(TestData.reading(d, before, 1000, 60), TestData.reading(d, after, 1000, 60)));
+    rollupService.recompute(List.of(u.getId()), before); // lectura tardía anterior al cambio
+    rollupService.recompute(List.of(u.getId()), after);
+    assertEquals(500.0, cost(u, before), 1e-9);
+    assertEquals(800.0, cost(u, after), 1e-9);
+
+    // corregir la versión vieja solo toca su periodo [EPOCH, change)
+    rollupService.reprice(u.getId(), version(u, Instant.EPOCH, 550), Instant.EPOCH, change);
+    assertEquals(550.0, cost(u, before), 1e-9);
+    assertEquals(800.0, cost(u, after), 1e-9);
+  }
+
+  private static Tariff version(User u, Instant from, double price) {
+    Tariff t = new Tariff();
+    t.setOwner(u); t.setEffectiveFrom(from); t.setPricePerKwh(price);
+    return t;
+  }
+
+  private double cost(User u, Instant hour) {
+    List<Object[]> series = rollups.seriesByBucket(u.getId(), hour, hour.plusSeconds(3600));
+    return ((Number) series.get(0)[2]).doubleValue();
+  }
+
+  @Test
+  void backfillWalksBackToTheOldestReadingAcrossRuns() {
+    User u = TestData.owner(users);
+    Device d = TestData.device(devices, u, "Nevera", 150);
+    Instant nowHour = Instant.now().truncatedTo(ChronoUnit.HOURS);
+    Instant old = nowHour.minus(Duration.ofDays(15)).plusSeconds(300);
+    readings.saveAll(List.of(
+        TestData.reading(d, old, 600, 60),
+        TestData.reading(d, nowHour.minus(Duration.ofDays(2)), 300, 60)));
+
+    rollupService.bootstrap(); // registra el avance del owner (bootstrap-hours=0: arranca en la hora siguiente)
+    RollupBackfill b = backfills.findById(u.getId()).orElseThrow();
+    assertEquals(nowHour.plus(Duration.ofHours(1)), b.getBackfilledFrom());
+
+    rollupService.backfill(); // 240 horas: llega a la lectura de hace 2 días pero no a la de hace 15
+    b = backfills.findById(u.getId()).orElseThrow();
+    assertNull(b.getFinishedAt());
+    assertEquals(old.truncatedTo(ChronoUnit.HOURS), b.getFloorHour());
+    assertEquals(nowHour.plus(Duration.ofHours(1)).minus(Duration.ofHours(240)), b.getBackfilledFrom());
+    assertEquals(1, rollups.sumKwhByBucket(u.getId(), old.minus(Duration.ofDays(1)), nowHour).size());
+
+    for (int i = 0; i < 5 && backfills.findById(u.getId()).orElseThrow().getFinishedAt() == null; i++) {
+      rollupService.backfill();
+    }
+    b = backfills.findById(u.getId()).orElseThrow();
+    assertNotNull(b.getFinishedAt());
+    assertEquals(b.getFloorHour(), b.getBackfilledFrom());
+    List<Object[]> buckets = rollups.sumKwhByBucket(u.getId(), old.minus(Duration.ofDays(1)), nowHour);
+    assertEquals(2, buckets.size());
+    assertTrue(buckets.stream().anyMatch(r -> old.truncatedTo(ChronoUnit.HOURS).equals(r[0])
+        && Math.abs(((Number) r[1]).doubleValue() - 0.6) < 1e-9));
+  }
+}
@@ -0,0 +1,79 @@
+package com.luminav.service;
+
+import com.luminav.entity.Tariff;
+import com.luminav.entity.TariffBand;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TariffPricingTest {
+
+  private static Tariff tariff(double price, Integer peakStart, Integer peakEnd) {
+    Tariff t = new Tariff();
+    t.setPricePerKwh(price);
+    t.setPeakStart(peakStart);
+    t.setPeakEnd(peakEnd);
+    return t;
+  }
+
+  private static void band(Tariff t, String name, String days, int start, int end, double price) {
+    TariffBand b = new TariffBand();
+    b.setTariff(t); b.setName(name); b.setDays(days); b.setStartHour(start); b.setEndHour(end); b.setPricePerKwh(price);
+    t.getBands().add(b);
+  }
+
+  @Test
+  void withoutTariffOrBandsFallsBackToFlatAndPeakWindow() {
+    assertEquals(new TariffPricing.Rate("FLAT", TariffPricing.DEFAULT_PRICE), TariffPricing.rateAt(null, 12, false));
+    assertEquals(new TariffPricing.Rate("FLAT", 700), TariffPricing.rateAt(tariff(700, null, null), 12, false));
+
+    Tariff peak = tariff(700, 18, 22);
+    assertEquals("PEAK", TariffPricing.rateAt(peak, 18, false).band());
+    assertEquals("OFF_PEAK", TariffPricing.rateAt(peak, 22, false).band()); // fin exclusivo
+    assertEquals(700, TariffPricing.rateAt(peak, 19, true).pricePerKwh());
+  }
+
+  @Test
+  void specificDaysBeatAllAndWeekendIsSeparate() {
+    Tariff t = tariff(650, null, null);
+    band(t, "SHOULDER", "ALL", 6, 22, 700);
+    band(t, "PEAK", "WEEKDAY", 18, 21, 900);
+    band(t, "OFF_PEAK", "WEEKEND", 10, 14, 400);
+
+    assertEquals(new TariffPricing.Rate("PEAK", 900), TariffPricing.rateAt(t, 19, false));
+    assertEquals(new TariffPricing.Rate("SHOULDER", 700), TariffPricing.rateAt(t, 19, true));
+    assertEquals(new TariffPricing.Rate("OFF_PEAK", 400), TariffPricing.rateAt(t, 11, true));
+    assertEquals(new TariffPricing.Rate("SHOULDER", 700), TariffPricing.rateAt(t, 11, false));
+    assertEquals(new TariffPricing.Rate("FLAT", 650), TariffPricing.rateAt(t, 23, false)); // ninguna franja
+  }
+
+  @Test
+  void bandsCanCrossMidnight() {
+    Tariff t = tariff(650, null, null);
+    band(t, "OFF_PEAK", "ALL", 22, 5, 450);
+    assertEquals("OFF_PEAK", TariffPricing.rateAt(t, 23, false).band());
+    assertEquals("OFF_PEAK", TariffPricing.rateAt(t, 0, true).band());
+    assertEquals("OFF_PEAK", TariffPricing.rateAt(t, 4, false).band());
+    assertEquals("FLAT", TariffPricing.rateAt(t, 5, false).band());
+    assertEquals("FLAT", TariffPricing.rateAt(t, 21, false).band());
+
+    assertTrue(TariffPricing.inRange(13, 7, 7)); // inicio == fin: todo el día
+    assertFalse(TariffPricing.inRange(13, null, 7));
+  }
+
+  @Test
+  void hoursAndWeekendsAreResolvedInBogotaNotUtc() {
+    // sábado 00:30 UTC = viernes 19:30 en Bogotá
+    Instant t = Instant.parse("2025-06-14T00:30:00Z");
+    assertEquals(19, TariffPricing.localHour(t));
+    assertFalse(TariffPricing.isWeekend(t));
+    assertTrue(TariffPricing.isWeekend(Instant.parse("2025-06-14T05:00:00Z"))); // sábado 00:00 local
+
+    Tariff peak = tariff(700, 18, 22);
+    assertEquals("PEAK", TariffPricing.rateAt(peak, t).band());
+  }
+}
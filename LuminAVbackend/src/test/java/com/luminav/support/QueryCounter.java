@@ -0,0 +1,27 @@
+package com.luminav.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual (MockMvc corre en el hilo del test;
+ * las tareas programadas quedan fuera). Se registra con
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector=com.luminav.support.QueryCounter
+ */
+public class QueryCounter implements StatementInspector {
+
+  private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+  @Override
+  public String inspect(String sql) {
+    COUNT.get()[0]++;
+    return sql;
+  }
+
+  public static void reset() {
+    COUNT.get()[0] = 0;
+  }
+
+  public static int count() {
+    return COUNT.get()[0];
+  }
+}
@@ -0,0 +1,36 @@
+package com.luminav.support;
+
+import com.luminav.entity.Device;
+import com.luminav.entity.Reading;
+import com.luminav.entity.User;
+import com.luminav.repository.DeviceRepository;
+import com.luminav.repository.UserRepository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Filas mínimas para pruebas de integración (cada owner con email único: el contexto se comparte entre pruebas) */
+public final class TestData {
+
+  private TestData() {}
+
+  public static User owner(UserRepository users) {
+    User u = new User();
+    String email = "t-" + UUID.randomUUID() + "@luminav.test";
+    u.setUsername(email); u.setEmail(email); u.setFullName("Test Owner");
+    u.setPasswordHash("x"); u.setRole("RESIDENT");
+    return users.save(u);
+  }
+
+  public static Device device(DeviceRepository devices, User owner, String name, int ratedWatt) {
+    Device d = new Device();
+    d.setName(name); d.setType("TV"); d.setWatt(ratedWatt); d.setOwner(owner);
+    return devices.save(d);
+  }
+
+  public static Reading reading(Device d, Instant at, int watt, int minutes) {
+    Reading r = new Reading();
+    r.setDevice(d); r.setRecordedAt(at); r.setWatt(watt); r.setMinutes(minutes);
+    return r;
+  }
+}
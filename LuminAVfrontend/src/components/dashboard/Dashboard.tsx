@@ -1,5 +1,5 @@
 // src/components/dashboard/Dashboard.tsx
-import React, { useEffect, useMemo, useState } from "react";
+import React, { useEffect, useState } from "react";
 import { MetricCard } from "./MetricCard";
 import { EnergyChart } from "./EnergyChart";
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from "@/components/ui/card";
@@ -8,6 +8,7 @@ import { Zap, DollarSign, Clock, TrendingUp } from "lucide-react";
 import { getDashboardSummary, DashboardSummary } from "@/services/dashboard";
 import { Button } from "@/components/ui/button";
 import { useToast } from "@/hooks/use-toast";
+import { useAuth } from "@/contexts/AuthContext";
 import { da } from "date-fns/locale";
 
 export const Dashboard: React.FC = () => {
@@ -15,11 +16,7 @@ export const Dashboard: React.FC = () => {
   const [data, setData] = useState<DashboardSummary | null>(null);
   const [loading, setLoading] = useState(false);
 
-  const ownerId = useMemo(() => {
-    const v = localStorage.getItem("ownerId");
-    const n = v ? Number(v) : NaN;
-    return Number.isNaN(n) ? null : n;
-  }, []);
+  const { user } = useAuth();
 
   // últimos 7 días
   const to = new Date();
@@ -28,13 +25,13 @@ export const Dashboard: React.FC = () => {
   const toISO = to.toISOString();
 
   const load = async () => {
-    if (!ownerId) {
+    if (!user) {
       toast({ variant: "destructive", title: "No hay usuario activo", description: "Inicia sesión o regístrate." });
       return;
     }
     setLoading(true);
     try {
-      const res = await getDashboardSummary(ownerId, fromISO, toISO);
+      const res = await getDashboardSummary(fromISO, toISO);
       setData(res.data);
     } catch (e) {
       console.error(e);
@@ -42,7 +39,7 @@ export const Dashboard: React.FC = () => {
     } finally { setLoading(false); }
   };
 
-  useEffect(() => { load(); /* eslint-disable-next-line */ }, [ownerId]);
+  useEffect(() => { load(); /* eslint-disable-next-line */ }, [user]);
 
   // Cards
   const metrics = [
@@ -1,4 +1,4 @@
-import React, { useEffect, useMemo, useState } from "react";
+import React, { useEffect, useState } from "react";
 import { Button } from "@/components/ui/button";
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from "@/components/ui/card";
 import { Input } from "@/components/ui/input";
@@ -8,6 +8,7 @@ import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from "@
 import { Dialog, DialogContent, DialogDescription, DialogFooter, DialogHeader, DialogTitle } from "@/components/ui/dialog";
 import { Badge } from "@/components/ui/badge";
 import { useToast } from "@/hooks/use-toast";
+import { useAuth } from "@/contexts/AuthContext";
 import { Plus, Edit, Trash2, Zap, Home, Cpu, RefreshCcw } from "lucide-react";
 import { createDevice, deleteDevice, listDevices, updateDevice } from "@/services/devices";
 
@@ -30,13 +31,8 @@ export const DeviceManager: React.FC = () => {
   const [editingDevice, setEditingDevice] = useState<UiDevice | null>(null);
   const [formData, setFormData] = useState({ name: "", type: "", power: "", location: "" });
 
-  // Lee el ownerId (guardado por el AuthContext al registrarte o loguearte)
-  const ownerId: number | null = useMemo(() => {
-    const v = localStorage.getItem("ownerId");
-    if (!v) return null;
-    const n = Number(v);
-    return Number.isNaN(n) ? null : n;
-  }, []);
+  // el backend resuelve el owner desde el token; solo hace falta saber si hay sesión
+  const { user } = useAuth();
 
   const deviceTypes = [
     "Climatización",
@@ -60,7 +56,7 @@ export const DeviceManager: React.FC = () => {
   };
 
   const load = async () => {
-    if (!ownerId) {
+    if (!user) {
       toast({
         variant: "destructive",
         title: "No hay usuario activo",
@@ -70,7 +66,7 @@ export const DeviceManager: React.FC = () => {
     }
     setLoading(true);
     try {
-      const res = await listDevices(ownerId);
+      const res = await listDevices();
       const rows: UiDevice[] = (res.data || []).map((d) => ({
         id: d.id,
         name: d.name,
@@ -95,7 +91,7 @@ export const DeviceManager: React.FC = () => {
   useEffect(() => {
     load();
     // eslint-disable-next-line react-hooks/exhaustive-deps
-  }, [ownerId]);
+  }, [user]);
 
   const handleAddDevice = () => {
     setEditingDevice(null);
@@ -115,9 +111,9 @@ export const DeviceManager: React.FC = () => {
   };
 
   const handleDeleteDevice = async (id: number) => {
-    if (!ownerId) return;
+    if (!user) return;
     try {
-      await deleteDevice(ownerId, id);
+      await deleteDevice(id);
       setDevices((prev) => prev.filter((d) => d.id !== id));
       toast({ title: "Dispositivo eliminado", description: "El dispositivo fue eliminado." });
     } catch (e: any) {
@@ -139,7 +135,7 @@ export const DeviceManager: React.FC = () => {
       });
       return;
     }
-    if (!ownerId) {
+    if (!user) {
       toast({
         variant: "destructive",
         title: "No hay usuario activo",
@@ -163,7 +159,7 @@ export const DeviceManager: React.FC = () => {
 
     try {
       if (editingDevice) {
-        const res = await updateDevice(ownerId, editingDevice.id, payload);
+        const res = await updateDevice(editingDevice.id, payload);
         const updated: UiDevice = {
           id: res.data.id,
           name: res.data.name,
@@ -175,7 +171,7 @@ export const DeviceManager: React.FC = () => {
         setDevices((prev) => prev.map((d) => (d.id === editingDevice.id ? updated : d)));
         toast({ title: "Dispositivo actualizado", description: "Cambios guardados correctamente." });
       } else {
-        const res = await createDevice(ownerId, payload);
+        const res = await createDevice(payload);
         const created: UiDevice = {
           id: res.data.id,
           name: res.data.name,
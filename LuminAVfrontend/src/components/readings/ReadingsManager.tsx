@@ -1,5 +1,5 @@
 // src/components/readings/ReadingsManager.tsx
-import React, { useEffect, useMemo, useState } from "react";
+import React, { useEffect, useState } from "react";
 import { Button } from "@/components/ui/button";
 import { Card, CardContent, CardDescription, CardHeader, CardTitle } from "@/components/ui/card";
 import { Input } from "@/components/ui/input";
@@ -8,6 +8,7 @@ import { Select, SelectContent, SelectItem, SelectTrigger, SelectValue } from "@
 import { Table, TableBody, TableCell, TableHead, TableHeader, TableRow } from "@/components/ui/table";
 import { Dialog, DialogContent, DialogDescription, DialogFooter, DialogHeader, DialogTitle } from "@/components/ui/dialog";
 import { useToast } from "@/hooks/use-toast";
+import { useAuth } from "@/contexts/AuthContext";
 import { Plus, Activity, Calendar, RefreshCcw } from "lucide-react";
 import { EnergyChart } from "@/components/dashboard/EnergyChart";
 import { format } from "date-fns";
@@ -35,25 +36,21 @@ export const ReadingsManager: React.FC = () => {
   const fromISO = from.toISOString();
   const toISO = to.toISOString();
 
-  const ownerId = useMemo(() => {
-    const v = localStorage.getItem("ownerId");
-    const n = v ? Number(v) : NaN;
-    return Number.isNaN(n) ? null : n;
-  }, []);
+  const { user } = useAuth();
 
   const [isDialogOpen, setIsDialogOpen] = useState(false);
   const [formData, setFormData] = useState({ deviceId: "", kwh: "", date: "", time: "", minutes: "60" });
 
   const loadAll = async () => {
-    if (!ownerId) {
+    if (!user) {
       toast({ variant: "destructive", title: "No hay usuario activo", description: "Inicia sesión o regístrate." });
       return;
     }
     setLoading(true);
     try {
       const [dres, rres] = await Promise.all([
-        listDevices(ownerId),
-        listReadings(ownerId, fromISO, toISO),
+        listDevices(),
+        listReadings(fromISO, toISO),
       ]);
       setDevices(dres.data);
 
@@ -74,7 +71,7 @@ export const ReadingsManager: React.FC = () => {
     }
   };
 
-  useEffect(() => { loadAll(); /* eslint-disable-next-line */ }, [ownerId]);
+  useEffect(() => { loadAll(); /* eslint-disable-next-line */ }, [user]);
 
   const handleAddReading = () => {
     const now = new Date();
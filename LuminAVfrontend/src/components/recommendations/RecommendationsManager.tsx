@@ -1,9 +1,10 @@
 // src/pages/RecommendationsManager.tsx
-import React, { useEffect, useMemo, useState } from "react";
+import React, { useEffect, useState } from "react";
 import { Button } from "@/components/ui/button";
 import { Card, CardContent, CardHeader, CardTitle, CardDescription } from "@/components/ui/card";
 import { Badge } from "@/components/ui/badge";
 import { useToast } from "@/hooks/use-toast";
+import { useAuth } from "@/contexts/AuthContext";
 import { Lightbulb, RefreshCw } from "lucide-react";
 import { listRecommendations, RecommendationDTO } from "@/services/recommendations";
 
@@ -12,20 +13,16 @@ export const RecommendationsManager: React.FC = () => {
   const [items, setItems] = useState<RecommendationDTO[]>([]);
   const [loading, setLoading] = useState(false);
 
-  const ownerId = useMemo(() => {
-    const v = localStorage.getItem("ownerId");
-    const n = v ? Number(v) : NaN;
-    return Number.isNaN(n) ? null : n;
-  }, []);
+  const { user } = useAuth();
 
   const load = async () => {
-    if (!ownerId) {
+    if (!user) {
       toast({ variant: "destructive", title: "No hay usuario activo", description: "Inicia sesión o regístrate." });
       return;
     }
     setLoading(true);
     try {
-      const res = await listRecommendations(ownerId, 20);
+      const res = await listRecommendations(20);
       setItems(res.data);
     } catch (e) {
       console.error(e);
@@ -35,7 +32,7 @@ export const RecommendationsManager: React.FC = () => {
     }
   };
 
-  useEffect(() => { load(); /* eslint-disable-next-line */ }, [ownerId]);
+  useEffect(() => { load(); /* eslint-disable-next-line */ }, [user]);
 
   const levelColor = (level: string) =>
     level === "ALERT" ? "destructive" : level === "WARN" ? "secondary" : "default";
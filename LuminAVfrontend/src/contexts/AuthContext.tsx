@@ -1,6 +1,7 @@
 import React, { createContext, useContext, useEffect, useState, ReactNode } from "react";
 import axios from "axios";
 import { registerRequest, loginRequest, RegisterResponse, LoginResponse } from "@/services/auth";
+import { TOKEN_KEY } from "@/services/api";
 
 type User = {
   id: number;          // <- numérico, igual al backend
@@ -29,7 +30,7 @@ export const useAuth = () => {
 type Props = { children: ReactNode };
 
 const STORAGE_KEY = "luminav_user";   // guardaremos {id, fullName, email, role}
-const OWNER_KEY   = "ownerId";        // guardaremos el id en string p/ devices
+const LEGACY_OWNER_KEY = "ownerId";   // sesiones antiguas: el owner ahora sale del token
 
 export const AuthProvider: React.FC<Props> = ({ children }) => {
   const [user, setUser] = useState<User | null>(null);
@@ -40,7 +41,8 @@ export const AuthProvider: React.FC<Props> = ({ children }) => {
   useEffect(() => {
     try {
       const raw = localStorage.getItem(STORAGE_KEY);
-      if (raw) {
+      // sesiones antiguas sin token: forzar nuevo login
+      if (raw && localStorage.getItem(TOKEN_KEY)) {
         const parsed = JSON.parse(raw) as User;
         setUser(parsed);
       }
@@ -49,16 +51,17 @@ export const AuthProvider: React.FC<Props> = ({ children }) => {
     }
   }, []);
 
-  const persistUser = (u: User) => {
+  const persistUser = (u: User, token: string) => {
     setUser(u);
     localStorage.setItem(STORAGE_KEY, JSON.stringify(u));
-    localStorage.setItem(OWNER_KEY, String(u.id));
+    localStorage.setItem(TOKEN_KEY, token);
   };
 
   const clearSession = () => {
     setUser(null);
     localStorage.removeItem(STORAGE_KEY);
-    localStorage.removeItem(OWNER_KEY);
+    localStorage.removeItem(LEGACY_OWNER_KEY);
+    localStorage.removeItem(TOKEN_KEY);
   };
 
   const register = async (name: string, email: string, password: string): Promise<boolean> => {
@@ -68,7 +71,7 @@ export const AuthProvider: React.FC<Props> = ({ children }) => {
       const res = await registerRequest({ fullName: name, email, password });
       const data: RegisterResponse = res.data;
       const u: User = { id: data.id, fullName: data.fullName, email: data.email, role: data.role };
-      persistUser(u);
+      persistUser(u, data.token);
       return true;
     } catch (err: any) {
       if (axios.isAxiosError(err)) {
@@ -91,7 +94,7 @@ export const AuthProvider: React.FC<Props> = ({ children }) => {
       const res = await loginRequest({ email, password });
       const data: LoginResponse = res.data;
       const u: User = { id: data.id, fullName: data.fullName, email: data.email, role: data.role };
-      persistUser(u);
+      persistUser(u, data.token);
       return true;
     } catch (err: any) {
       if (axios.isAxiosError(err)) {
@@ -5,3 +5,12 @@ export const api = axios.create({
   baseURL: import.meta.env.VITE_API_BASE || "/api",
   // opcional: withCredentials: true,
 });
+
+// Token de sesión emitido por /auth/login (el backend resuelve el owner desde él)
+export const TOKEN_KEY = "luminav_token";
+
+api.interceptors.request.use((config) => {
+  const token = localStorage.getItem(TOKEN_KEY);
+  if (token) config.headers.Authorization = `Bearer ${token}`;
+  return config;
+});
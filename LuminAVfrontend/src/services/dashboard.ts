@@ -1,15 +1,21 @@
 
 import { api } from "@/services/api";
 
-export type SummaryPoint = { bucket: string; kwh: number };
+export type SummaryPoint = { bucket: string; kwh: number; cost?: number };
 export type DeviceUsage  = { deviceId: number; name: string; kwh: number };
+export type BandUsage    = { band: "PEAK" | "OFF_PEAK" | "SHOULDER" | "FLAT"; kwh: number; cost: number };
 export type DashboardSummary = {
   totalKwh: number;
   totalCost: number;
-  byHour: SummaryPoint[];
-  byDay: SummaryPoint[];
+  // Sin maxPoints vienen completos; con maxPoints llegan vacíos y se usa series
+  byHour: SummaryPoint[] | null;
+  byDay: SummaryPoint[] | null;
   topDevices: DeviceUsage[];
+  byBand?: BandUsage[];
+  granularity?: "HOUR" | "DAY" | "WEEK" | "MONTH" | null;
+  series?: SummaryPoint[] | null;
 };
 
-export const getDashboardSummary = (ownerId: number, fromISO: string, toISO: string) =>
-  api.get<DashboardSummary>("/dashboard/summary", { params: { ownerId, from: fromISO, to: toISO }});
+// maxPoints: el servidor elige hora/día/semana/mes y reduce la serie (LTTB) a lo sumo a maxPoints puntos
+export const getDashboardSummary = (fromISO: string, toISO: string, maxPoints?: number) =>
+  api.get<DashboardSummary>("/dashboard/summary", { params: { from: fromISO, to: toISO, maxPoints }});
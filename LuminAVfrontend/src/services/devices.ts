@@ -18,14 +18,27 @@ export type UpsertDevicePayload = {
   location: string;
 };
 
-export const listDevices = (ownerId: number) =>
-  api.get<DeviceDTO[]>("/devices", { params: { ownerId } });
+export const listDevices = () =>
+  api.get<DeviceDTO[]>("/devices");
 
-export const createDevice = (ownerId: number, body: UpsertDevicePayload) =>
-  api.post<DeviceDTO>("/devices", body, { params: { ownerId } });
+export const createDevice = (body: UpsertDevicePayload) =>
+  api.post<DeviceDTO>("/devices", body);
 
-export const updateDevice = (ownerId: number, id: number, body: UpsertDevicePayload) =>
-  api.put<DeviceDTO>(`/devices/${id}`, body, { params: { ownerId } });
+export const updateDevice = (id: number, body: UpsertDevicePayload) =>
+  api.put<DeviceDTO>(`/devices/${id}`, body);
 
-export const deleteDevice = (ownerId: number, id: number) =>
-  api.delete<void>(`/devices/${id}`, { params: { ownerId } });
+export const deleteDevice = (id: number) =>
+  api.delete<void>(`/devices/${id}`);
+
+// Estado "ahora" de cada dispositivo (servido desde memoria); cruzar con listDevices por deviceId para el nombre
+export type LiveDeviceDTO = {
+  deviceId: number;
+  watt: number | null;        // null = aún sin lecturas
+  lastSeen: string | null;
+  onSince: string | null;     // null = apagado u offline
+  todayKwh: number;
+  status: "ONLINE" | "OFFLINE";
+};
+
+export const listLiveDevices = () =>
+  api.get<LiveDeviceDTO[]>("/devices/live");
@@ -16,8 +16,8 @@ export type ReadingDTO = {
   recordedAt: string;   // ISO
 };
 
-export const listReadings = (ownerId: number, fromISO: string, toISO: string, deviceId?: number) =>
-  api.get<ReadingDTO[]>("/readings", { params: { ownerId, from: fromISO, to: toISO, deviceId } });
+export const listReadings = (fromISO: string, toISO: string, deviceId?: number) =>
+  api.get<ReadingDTO[]>("/readings", { params: { from: fromISO, to: toISO, deviceId } });
 
 export const createReading = (data: CreateReading) =>
   api.post<ReadingDTO>("/readings", data);
@@ -8,6 +8,6 @@ export type RecommendationDTO = {
   createdAt: string;
 };
 
-export const listRecommendations = (ownerId: number, limit = 20) =>
-  api.get<RecommendationDTO[]>("/recommendations", { params: { ownerId, limit }});
+export const listRecommendations = (limit = 20) =>
+  api.get<RecommendationDTO[]>("/recommendations", { params: { limit }});
 